@@ -18,6 +18,8 @@ class BoyerMooreAlgo {
     void principal() {
         testBoyerMooreAlgo();
         testBoyerMooreAlgoEfficiency();
+        testTurboBoyerMooreAlgo();
+        testTurboBoyerMooreAlgoEfficiency();
     }
 
     /**
@@ -27,6 +29,19 @@ class BoyerMooreAlgo {
      * @return The shift to apply (good suffix rule, D2).
      */
     int calculDecalageBonSuffixe(String pattern, int j) {
+        return calculDecalageBonSuffixe(pattern, j, new SearchBudget());
+    }
+
+    /**
+     * Computes the good suffix shift, charging the budget for the characters
+     * compared (O(m^2) in the worst case) by batches of SearchBudget.BATCH.
+     * @param pattern The pattern to search for.
+     * @param j The index where the mismatch occurred in the pattern.
+     * @param budget The budget of the search; if it stops the search, the
+     * returned shift is meaningless and the caller must check its status.
+     * @return The shift to apply (good suffix rule, D2).
+     */
+    int calculDecalageBonSuffixe(String pattern, int j, SearchBudget budget) {
         int m = pattern.length();
         int shift = m; // Default: full shift
 
@@ -35,10 +50,18 @@ class BoyerMooreAlgo {
             shift = 1;
         } else {
             int uLen = m - (j + 1);
+            int work = 0; // units of work not yet charged to the budget
 
             // Rule 1: Search for another occurrence of u preceded by a character
             // different from pattern[j]
             for (int k = j - uLen; k >= 0; k--) {
+                work += uLen;
+                if (work >= SearchBudget.BATCH) {
+                    if (budget.exceeded(work)) {
+                        return shift;
+                    }
+                    work = 0;
+                }
 
                 boolean match = true;
 
@@ -60,6 +83,13 @@ class BoyerMooreAlgo {
             if (shift == m && uLen > 0) {
 
                 for (int z = uLen; z > 0; z--) {
+                    work += z;
+                    if (work >= SearchBudget.BATCH) {
+                        if (budget.exceeded(work)) {
+                            return shift;
+                        }
+                        work = 0;
+                    }
 
                     boolean prefixMatch = true;
 
@@ -134,6 +164,219 @@ class BoyerMooreAlgo {
         return result;
     }
 
+    /**
+     * Boyer-Moore algorithm with an operation budget, a deadline and a cancellation
+     * token, charged for the characters compared at each alignment and in the
+     * computation of the shifts.
+     * @param text The text in which to search for the pattern.
+     * @param pattern The pattern to search for.
+     * @param budget The budget of the search; its status tells whether the search was stopped.
+     * @return The start indices of the occurrences found before the search ended or was stopped.
+     */
+    ArrayList<Integer> boyerMooreAlgo(ArrayList<Character> text, String pattern, SearchBudget budget) {
+
+        ArrayList<Integer> result = new ArrayList<>();
+        int indPattern = 0;
+        int indFinPattern = pattern.length() - 1;
+        int work = 0; // units of work not yet charged to the budget
+        while (indFinPattern < text.size()) {
+            int j = pattern.length() - 1;
+            while (j >= 0 && text.get(indPattern + j) == pattern.charAt(j)) {
+                j--;
+            }
+            cpt++; // increment the counter
+            // characters compared, then scanned by the bad character rule
+            work += pattern.length() + 1;
+            if (work >= SearchBudget.BATCH) {
+                if (budget.exceeded(work)) {
+                    return result;
+                }
+                work = 0;
+            }
+            if (j < 0) {
+                result.add(indPattern+1); // 1st occurrence at index 1
+                indPattern += 1;
+                indFinPattern = indPattern + pattern.length() - 1;
+            } else {
+                int d1 = decalage(pattern, text.get(indPattern + j), j);
+                int d2 = calculDecalageBonSuffixe(pattern, j, budget);
+                if (budget.status != SearchBudget.Status.COMPLETED) {
+                    return result;
+                }
+                int decale = Math.max(d1, d2);
+                indPattern += decale;
+                indFinPattern = indPattern + pattern.length() - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds the bad character table: for each character, the distance from its
+     * last occurrence in pattern[0..m-2] to the end of the pattern.
+     * The table is indexed by character code up to the largest character of the
+     * pattern; characters above it are not in the pattern and shift by m.
+     * @param pattern The pattern to search for.
+     * @return The bad character table.
+     */
+    int[] buildBadCharTable(String pattern) {
+        int m = pattern.length();
+        int max = 0;
+        for (int i = 0; i < m; i++) {
+            max = Math.max(max, pattern.charAt(i));
+        }
+        int[] bmBc = new int[max + 1];
+        Arrays.fill(bmBc, m);
+        for (int i = 0; i < m - 1; i++) {
+            bmBc[pattern.charAt(i)] = m - 1 - i;
+        }
+        return bmBc;
+    }
+
+    /**
+     * Computes, for each position i of the pattern, the length of the longest
+     * substring ending at i that is also a suffix of the pattern.
+     * @param pattern The pattern to search for.
+     * @return The suffix lengths.
+     */
+    int[] buildSuffixes(String pattern) {
+        int m = pattern.length();
+        int[] suff = new int[m];
+        suff[m - 1] = m;
+        int g = m - 1;
+        int f = m - 1;
+        for (int i = m - 2; i >= 0; i--) {
+            if (i > g && suff[i + m - 1 - f] < i - g) {
+                suff[i] = suff[i + m - 1 - f];
+            } else {
+                if (i < g) {
+                    g = i;
+                }
+                f = i;
+                while (g >= 0 && pattern.charAt(g) == pattern.charAt(g + m - 1 - f)) {
+                    g--;
+                }
+                suff[i] = f - g;
+            }
+        }
+        return suff;
+    }
+
+    /**
+     * Builds the good suffix table once for the whole search: bmGs[j] is the
+     * shift to apply after a mismatch at position j, and bmGs[0] is the period
+     * of the pattern, used after a full match.
+     * @param pattern The pattern to search for.
+     * @return The good suffix table.
+     */
+    int[] buildGoodSuffixTable(String pattern) {
+        int m = pattern.length();
+        int[] suff = buildSuffixes(pattern);
+        int[] bmGs = new int[m];
+        Arrays.fill(bmGs, m);
+        int j = 0;
+        for (int i = m - 1; i >= 0; i--) {
+            if (suff[i] == i + 1) {
+                for (; j < m - 1 - i; j++) {
+                    if (bmGs[j] == m) {
+                        bmGs[j] = m - 1 - i;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i <= m - 2; i++) {
+            bmGs[m - 1 - suff[i]] = m - 1 - i;
+        }
+        return bmGs;
+    }
+
+    /**
+     * Implements the Turbo Boyer-Moore algorithm. It keeps the bad character and
+     * good suffix shifts, and also remembers the factor of the text matched at
+     * the previous alignment: that factor is jumped over instead of being
+     * compared again, and a turbo shift is applied when the new match is
+     * shorter. After a full match the pattern moves by its period.
+     * Here cpt counts every character comparison; it never exceeds 2n.
+     * @param text The text in which to search for the pattern.
+     * @param pattern The pattern to search for.
+     * @return A list of start indices for each occurrence of the pattern in the text.
+     */
+    ArrayList<Integer> turboBoyerMooreAlgo(ArrayList<Character> text, String pattern) {
+        return turboBoyerMooreAlgo(text, pattern, new SearchBudget());
+    }
+
+    /**
+     * Turbo Boyer-Moore algorithm with an operation budget, a deadline and a
+     * cancellation token, charged for its two tables and one unit per
+     * character comparison.
+     * @param text The text in which to search for the pattern.
+     * @param pattern The pattern to search for.
+     * @param budget The budget of the search; its status tells whether the search was stopped.
+     * @return The start indices of the occurrences found before the search ended or was stopped.
+     */
+    ArrayList<Integer> turboBoyerMooreAlgo(ArrayList<Character> text, String pattern, SearchBudget budget) {
+
+        ArrayList<Integer> result = new ArrayList<>();
+        int n = text.size();
+        int m = pattern.length();
+        if (m == 0 || m > n) {
+            return result;
+        }
+        int[] bmBc = buildBadCharTable(pattern);
+        int[] bmGs = buildGoodSuffixTable(pattern);
+        if (budget.exceeded(2 * m)) {
+            return result;
+        }
+
+        int indPattern = 0;
+        int u = 0; // length of the factor remembered from the previous alignment
+        int shift = m;
+        long charged = cpt; // value of cpt when the budget was last charged
+        while (indPattern <= n - m) {
+            int i = m - 1;
+            boolean match = true;
+            while (i >= 0 && match) {
+                cpt++; // increment the counter
+                if (text.get(indPattern + i) == pattern.charAt(i)) {
+                    i--;
+                    if (u != 0 && i == m - 1 - shift) {
+                        i -= u; // jump over the remembered factor
+                    }
+                } else {
+                    match = false;
+                }
+            }
+            // charge the comparisons once there are BATCH of them
+            if (cpt - charged >= SearchBudget.BATCH) {
+                if (budget.exceeded(cpt - charged)) {
+                    return result;
+                }
+                charged = cpt;
+            }
+            if (i < 0) {
+                result.add(indPattern + 1); // 1st occurrence at index 1
+                shift = bmGs[0];
+                u = m - shift;
+            } else {
+                int v = m - 1 - i;
+                int turboShift = u - v;
+                char c = text.get(indPattern + i);
+                int bcShift = (c < bmBc.length ? bmBc[c] : m) - m + 1 + i;
+                shift = Math.max(Math.max(turboShift, bcShift), bmGs[i]);
+                if (shift == bmGs[i]) {
+                    u = Math.min(m - shift, v);
+                } else {
+                    if (turboShift < bcShift) {
+                        shift = Math.max(shift, u + 1);
+                    }
+                    u = 0;
+                }
+            }
+            indPattern += shift;
+        }
+        return result;
+    }
+
     /**
      * Test method for the Boyer-Moore algorithm.
      */
@@ -214,6 +457,112 @@ class BoyerMooreAlgo {
         }
     }
 
+    /**
+     * Test method for the Turbo Boyer-Moore algorithm: the sentences used by
+     * testBoyerMooreAlgo, then periodic texts where cpt must stay below 2n.
+     */
+    void testTurboBoyerMooreAlgo() {
+        ArrayList<Character> texte1 = new ArrayList<>();
+        for (char c : "Il a regardé dedans, est entré dedans, puis a caché la clé dedans.".toCharArray()) {
+            texte1.add(c);
+        }
+        testCasTurboBoyerMooreAlgo(texte1, "dedans", new ArrayList<>(Arrays.asList(14, 32, 60)));
+
+        ArrayList<Character> texte2 = new ArrayList<>();
+        for (char c : "Il est entré dans la maison, a nettoyé la maison, puis a quitté la maison.".toCharArray()) {
+            texte2.add(c);
+        }
+        testCasTurboBoyerMooreAlgo(texte2, "maison", new ArrayList<>(Arrays.asList(22, 43, 68)));
+
+        NaiveAlgo naive = new NaiveAlgo();
+        String[] patterns = { "aaaa", "ab", "aaaaaaaaab", "baaaaaaaaa" };
+        for (String pattern : patterns) {
+            ArrayList<Character> texte = generateLettreText(100000, 'a');
+            testCasTurboBoyerMooreAlgo(texte, pattern, naive.naiveAlgo(texte, pattern));
+        }
+        ArrayList<Character> texte3 = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            texte3.add(i % 3 == 2 ? 'b' : 'a');
+        }
+        testCasTurboBoyerMooreAlgo(texte3, "aabaabaab", naive.naiveAlgo(texte3, "aabaabaab"));
+        ArrayList<Character> texte4 = generateSequenceText(100000);
+        testCasTurboBoyerMooreAlgo(texte4, "aaaaabbbbb", naive.naiveAlgo(texte4, "aaaaabbbbb"));
+    }
+
+    /**
+     * Tests a specific case of the Turbo Boyer-Moore algorithm: the result must
+     * be the expected one and the number of comparisons at most 2n.
+     * @param text The text in which to search for the pattern.
+     * @param pattern The pattern to search for.
+     * @param resultAttendu The expected list of indices for the pattern occurrences.
+     */
+    void testCasTurboBoyerMooreAlgo(ArrayList<Character> text, String pattern, ArrayList<Integer> resultAttendu) {
+        cpt = 0;
+        ArrayList<Integer> result = turboBoyerMooreAlgo(text, pattern);
+        if (result.equals(resultAttendu) && cpt <= 2L * text.size()) {
+            System.out.println("Test passed for pattern \"" + pattern + "\" (cpt/n = "
+                + (cpt / (double) text.size()) + ").");
+        } else {
+            System.out.println("Test failed for pattern \"" + pattern + "\". Expected: "
+                + resultAttendu + ", Got: " + result + ", cpt = " + cpt + ", n = " + text.size());
+        }
+    }
+
+    /**
+     * Tests the efficiency of the Turbo Boyer-Moore algorithm against the
+     * classic version on a periodic text and on a random text.
+     */
+    void testTurboBoyerMooreAlgoEfficiency() {
+
+        long t1, t2, diffT;
+        System.out.println("----- Tests d'efficacité de l'algorithme Turbo Boyer-Moore : -----\n");
+        System.out.println(" -- Texte avec alphabet restreint {a} et motif \"aaaa\"\n");
+        int size = 500000;
+        String pattern = "aaaa";
+        for (int i = 1; i <= 6; i++) {
+            ArrayList<Character> texte = generateLettreText(size, 'a');
+            System.out.println("Taille du texte : " + size);
+            t1 = System.nanoTime();
+            boyerMooreAlgo(texte, pattern);
+            t2 = System.nanoTime();
+            diffT = t2 - t1; // in nanoseconds
+            System.out.println("Temps d'exécution Boyer-Moore : " + diffT + " ns");
+            cpt = 0; // reset the counter
+            t1 = System.nanoTime();
+            turboBoyerMooreAlgo(texte, pattern);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Temps d'exécution Turbo Boyer-Moore : " + diffT + " ns");
+            System.out.println("Nombre de comparaisons (cpt) : " + cpt);
+            System.out.println("Nombre de comparaisons/n (cpt/n) : " + (cpt / (double) size));
+            System.out.println();
+            size = size * 2;
+        }
+        System.out.println(" -- Texte avec alphabet entier aleatoire et motif \"abf\"\n");
+        size = 500000;
+        pattern = "abf";
+        for (int i = 1; i <= 6; i++) {
+            ArrayList<Character> texte = generateRandomText(size);
+            System.out.println("Taille du texte : " + size);
+            t1 = System.nanoTime();
+            boyerMooreAlgo(texte, pattern);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Temps d'exécution Boyer-Moore : " + diffT + " ns");
+            cpt = 0;
+            t1 = System.nanoTime();
+            turboBoyerMooreAlgo(texte, pattern);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Temps d'exécution Turbo Boyer-Moore : " + diffT + " ns");
+            System.out.println("Nombre de comparaisons (cpt) : " + cpt);
+            System.out.println("Nombre de comparaisons/n (cpt/n) : " + (cpt / (double) size));
+            System.out.println();
+            size = size * 2;
+        }
+        System.out.println("--------------------------------------------------");
+    }
+
     /**
      * Generates a random text of the specified size.
      * @param size The size of the text to generate.
@@ -276,13 +625,17 @@ class BoyerMooreAlgo {
             ArrayList<Character> texte = generateLettreText(size, 'a');
             System.out.println("Taille du texte : " + size);
             cpt = 0; // reset the counter
+            MemoryProfile profil = new MemoryProfile();
+            profil.start();
             t1 = System.nanoTime();
-            boyerMooreAlgo(texte, pattern);
+            ArrayList<Integer> result = boyerMooreAlgo(texte, pattern);
             t2 = System.nanoTime();
+            profil.stop();
             diffT = t2 - t1; // in nanoseconds
             System.out.println("Temps d'exécution : " + diffT + " ns");
             System.out.println("Nombre d'opérations (cpt) : " + cpt);
             System.out.println("Nombre d'opérations/n (cpt/n) : " + (cpt / (double) size));
+            profil.print(texte, result);
             System.out.println();
             size = size * 2;
         }
@@ -293,13 +646,17 @@ class BoyerMooreAlgo {
             ArrayList<Character> texte = generateRandomText(size);
             System.out.println("Taille du texte : " + size);
             cpt = 0; // reset the counter
+            MemoryProfile profil = new MemoryProfile();
+            profil.start();
             t1 = System.nanoTime();
-            boyerMooreAlgo(texte, pattern);
+            ArrayList<Integer> result = boyerMooreAlgo(texte, pattern);
             t2 = System.nanoTime();
+            profil.stop();
             diffT = t2 - t1; // in nanoseconds
             System.out.println("Temps d'exécution : " + diffT + " ns");
             System.out.println("Nombre d'opérations (cpt) : " + cpt);
             System.out.println("Nombre d'opérations/n (cpt/n) : " + (cpt / (double) size));
+            profil.print(texte, result);
             System.out.println();
             size = size * 2;
         }
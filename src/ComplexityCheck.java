@@ -0,0 +1,444 @@
+import java.util.ArrayList;
+
+/**
+ * Empirical check of the complexity of the search algorithms.
+ * Each algorithm is run on each family of texts over a geometric range of
+ * text sizes n and pattern sizes m. The slope of log(cpt) and log(time)
+ * against log(n) or log(m) is fitted by least squares and compared with the
+ * expected complexity class, so that an algorithm that becomes super-linear
+ * (for instance by rebuilding a table inside its main loop) is caught.
+ * The counters do not see the work spent on the tables, so in m (n much
+ * larger than m) the time is checked too. A deliberately quadratic copy of
+ * KMP shows that the checker fails on such a regression.
+ */
+class ComplexityCheck {
+
+    /**
+     * Number of checks that failed since the object was created.
+     */
+    int failures;
+
+    /**
+     * Names of the checked algorithms.
+     */
+    static final String[] ALGOS = { "naive", "kmp", "automaton", "rabinKarp", "boyerMoore", "turbo" };
+
+    /**
+     * Names of the text families: random 26-letter text, text of 'a' only, and
+     * runs of 5 identical letters of {a, b, c, d}.
+     */
+    static final String[] FAMILIES = { "random", "lettre", "sequence" };
+
+    /**
+     * Allowed distance between a measured cpt slope and the expected one.
+     */
+    static final double CPT_TOLERANCE = 0.15;
+
+    /**
+     * Allowed excess of the cpt slope in m over -1 for the algorithms that are
+     * sub-linear (n/m) on random text: the shifts are bounded by the alphabet
+     * and by repeated letters of the pattern, so the decrease is a bit slower.
+     */
+    static final double SUBLINEAR_TOLERANCE = 0.4;
+
+    /**
+     * Allowed excess of a measured time slope over the expected one. Time is
+     * noisy, but a quadratic path gives a slope of 2 against 1 expected in n,
+     * and of 1 against 0 in m.
+     */
+    static final double TIME_TOLERANCE = 0.5;
+
+    /**
+     * Entry point: runs the checks and exits with status 1 if one failed.
+     *
+     * @param args unused.
+     */
+    public static void main(String[] args) {
+        ComplexityCheck check = new ComplexityCheck();
+        check.principal();
+        System.exit(check.failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Main method to run all the checks.
+     */
+    void principal() {
+        testSlope();
+        testMutant();
+        testComplexityCheck();
+        System.out.println("Échecs : " + failures);
+    }
+
+    /**
+     * Fits the slope of log(y) against log(x) by least squares.
+     *
+     * @param x the sizes.
+     * @param y the measures.
+     * @return the slope of the log-log regression line.
+     */
+    double slope(double[] x, double[] y) {
+        int k = x.length;
+        double sx = 0, sy = 0, sxx = 0, sxy = 0;
+        for (int i = 0; i < k; i++) {
+            double lx = Math.log(x[i]);
+            double ly = Math.log(Math.max(y[i], 1));
+            sx += lx;
+            sy += ly;
+            sxx += lx * lx;
+            sxy += lx * ly;
+        }
+        return (k * sxy - sx * sy) / (k * sxx - sx * sx);
+    }
+
+    /**
+     * Runs an algorithm several times and keeps the counter and the best time.
+     *
+     * @param algo    the name of the algorithm.
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @return the counter of one run and the best time in nanoseconds.
+     */
+    long[] measure(String algo, ArrayList<Character> text, String pattern) {
+        long best = Long.MAX_VALUE;
+        long ops = 0;
+        for (int r = 0; r < 5; r++) {
+            long t1 = System.nanoTime();
+            ops = run(algo, text, pattern);
+            long t2 = System.nanoTime();
+            best = Math.min(best, t2 - t1);
+        }
+        return new long[] { ops, best };
+    }
+
+    /**
+     * Runs an algorithm once.
+     *
+     * @param algo    the name of the algorithm.
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @return the value of the algorithm's counter.
+     */
+    long run(String algo, ArrayList<Character> text, String pattern) {
+        if (algo.equals("naive")) {
+            NaiveAlgo engine = new NaiveAlgo();
+            engine.naiveAlgo(text, pattern);
+            return engine.cpt;
+        } else if (algo.equals("kmp")) {
+            KMPAlgo engine = new KMPAlgo();
+            engine.kmpAlgo(text, pattern);
+            return engine.cpt;
+        } else if (algo.equals("automaton")) {
+            KMPAlgo engine = new KMPAlgo();
+            engine.kmpAutomatonAlgo(text, pattern);
+            return engine.cpt;
+        } else if (algo.equals("rabinKarp")) {
+            RabinKarpAlgo engine = new RabinKarpAlgo();
+            engine.rabinKarpAlgo(text, pattern);
+            return engine.cpt;
+        } else if (algo.equals("boyerMoore")) {
+            BoyerMooreAlgo engine = new BoyerMooreAlgo();
+            engine.boyerMooreAlgo(text, pattern);
+            return engine.cpt;
+        } else if (algo.equals("turbo")) {
+            BoyerMooreAlgo engine = new BoyerMooreAlgo();
+            engine.turboBoyerMooreAlgo(text, pattern);
+            return engine.cpt;
+        } else if (algo.equals("mutant")) {
+            return mutantKmpAlgo(text, pattern);
+        }
+        throw new IllegalArgumentException("Unknown algorithm " + algo);
+    }
+
+    /**
+     * Copy of the KMP algorithm with a regression: the prefix table is rebuilt
+     * at each step of the main loop, so the time is Θ(n * m) while cpt is still
+     * about n. Only used to check that the checker fails on it.
+     *
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @return the value of the counter.
+     */
+    long mutantKmpAlgo(ArrayList<Character> text, String pattern) {
+        KMPAlgo kmp = new KMPAlgo();
+        int n = text.size();
+        int m = pattern.length();
+        long ops = 0;
+        int i = 0;
+        int j = 0;
+        while (i < n) {
+            ops++;
+            int[] pi = kmp.buildPrefixTable(pattern);
+            if (text.get(i) == pattern.charAt(j)) {
+                i++;
+                j++;
+                if (j == m) {
+                    j = pi[j - 1];
+                }
+            } else if (j > 0) {
+                j = pi[j - 1];
+            } else {
+                i++;
+            }
+        }
+        return ops;
+    }
+
+    /**
+     * Generates a text of a family.
+     *
+     * @param family the name of the family.
+     * @param n      the size of the text.
+     * @return the generated text.
+     */
+    ArrayList<Character> generate(String family, int n) {
+        NaiveAlgo naive = new NaiveAlgo();
+        if (family.equals("random")) {
+            return naive.generateText(n);
+        } else if (family.equals("lettre")) {
+            return naive.generateLettreText(n, 'a');
+        }
+        return naive.generateSequenceText(n);
+    }
+
+    /**
+     * Builds a pattern of a given length adapted to a family: random letters
+     * for random text, a...ab for the text of 'a', and a factor of another text
+     * of the family for the sequences.
+     *
+     * @param family the name of the family.
+     * @param m      the length of the pattern.
+     * @return the pattern.
+     */
+    String makePattern(String family, int m) {
+        StringBuilder sb = new StringBuilder();
+        if (family.equals("random")) {
+            for (int i = 0; i < m; i++) {
+                sb.append((char) ('a' + (int) (Math.random() * 26)));
+            }
+        } else if (family.equals("lettre")) {
+            for (int i = 0; i < m - 1; i++) {
+                sb.append('a');
+            }
+            sb.append('b');
+        } else {
+            ArrayList<Character> other = generate(family, 5 * m + 5);
+            for (int i = 0; i < m; i++) {
+                sb.append(other.get(i));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Expected slope of cpt against m (n fixed). The counters of the naive,
+     * KMP and Rabin-Karp algorithms do not grow with m (they may decrease when
+     * a longer pattern has fewer occurrences to verify); Boyer-Moore counts one
+     * operation per alignment and skips about m characters per alignment on
+     * random text (n/m best case); Turbo Boyer-Moore counts comparisons, about
+     * n/m on random text as well. Once the pattern holds most of the 26
+     * letters, the bad character shifts stop growing, so n/m is only expected
+     * for patterns shorter than the alphabet.
+     *
+     * @param algo   the name of the algorithm.
+     * @param family the name of the family.
+     * @param maxM   the largest pattern size of the range.
+     * @return the expected slope.
+     */
+    double expectedSlopeM(String algo, String family, int maxM) {
+        if ((algo.equals("boyerMoore") || algo.equals("turbo")) && family.equals("random") && maxM < 26) {
+            return -1;
+        }
+        return 0;
+    }
+
+    /**
+     * Tells whether the time in m is checked: the Boyer-Moore algorithm of the
+     * project recomputes its good suffix shift in O(m^2) at each mismatch, so
+     * its time in m is only reported.
+     *
+     * @param algo the name of the algorithm.
+     * @return true if the time slope in m is checked.
+     */
+    boolean timeCheckedInM(String algo) {
+        return !algo.equals("boyerMoore");
+    }
+
+    /**
+     * Expected slope of the time against m (n fixed, much larger than m). The
+     * naive algorithm compares m characters at each alignment of the text of
+     * 'a', so its time is Θ(n * m) there; the other checked algorithms run in
+     * O(n + m), so their time does not grow with m.
+     *
+     * @param algo   the name of the algorithm.
+     * @param family the name of the family.
+     * @return the expected slope.
+     */
+    double expectedTimeSlopeM(String algo, String family) {
+        if (algo.equals("naive") && family.equals("lettre")) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Checks that the slope fitting recognizes linear and quadratic growth.
+     */
+    void testSlope() {
+        System.out.println("Test ComplexityCheck.slope");
+        double[] x = { 1000, 2000, 4000, 8000 };
+        double[] lin = { 3000, 6000, 12000, 24000 };
+        double[] quad = { 1e6, 4e6, 16e6, 64e6 };
+        if (Math.abs(slope(x, lin) - 1) < 1e-9 && Math.abs(slope(x, quad) - 2) < 1e-9) {
+            System.out.println("Test passed for slopes 1 and 2.");
+        } else {
+            failures++;
+            System.out.println("Test failed for slopes: " + slope(x, lin) + ", " + slope(x, quad));
+        }
+    }
+
+    /**
+     * Sizes of the pattern for the checks in m.
+     */
+    static final int[] SIZES_M = { 4, 8, 16, 32, 64, 128, 256 };
+
+    /**
+     * Sizes of the pattern, shorter than the alphabet, for the checks of the
+     * sub-linear algorithms.
+     */
+    static final int[] SHORT_SIZES_M = { 4, 8, 16 };
+
+    /**
+     * Checks that the checker catches the quadratic copy of KMP, whose counter
+     * alone looks linear.
+     */
+    void testMutant() {
+        System.out.println("Test ComplexityCheck (mutant quadratique)");
+        ArrayList<Character> warmup = generate("random", 1 << 15);
+        for (int r = 0; r < 10; r++) {
+            run("mutant", warmup, makePattern("random", 4 << (r % 3)));
+        }
+        double[] slopes = slopes("mutant", "random", SIZES_M, 1 << 18, false);
+        if (!accepted("kmp", "random", SIZES_M, false, slopes)) {
+            System.out.println("Test passed: mutant caught (pente cpt " + round(slopes[0]) + ", pente temps "
+                    + round(slopes[1]) + ").");
+        } else {
+            failures++;
+            System.out.println("Test failed: mutant accepted (pente cpt " + round(slopes[0]) + ", pente temps "
+                    + round(slopes[1]) + ").");
+        }
+    }
+
+    /**
+     * Runs the checks in n (m = 8, n from 2^17 to 2^21) and in m (n = 2^18,
+     * m from 4 to 256) for every algorithm and every family, and the checks of
+     * the sub-linear algorithms for m from 4 to 16.
+     */
+    void testComplexityCheck() {
+        System.out.println("Test ComplexityCheck");
+        int[] sizesN = { 1 << 17, 1 << 18, 1 << 19, 1 << 20, 1 << 21 };
+        int[] sizesM = SIZES_M;
+        for (String family : FAMILIES) {
+            // Warm up the JIT before any measure
+            ArrayList<Character> warmup = generate(family, 1 << 17);
+            for (int r = 0; r < 10; r++) {
+                for (String algo : ALGOS) {
+                    run(algo, warmup, makePattern(family, 4 << (r % 3)));
+                }
+            }
+            for (String algo : ALGOS) {
+                testCasComplexityCheck(algo, family, sizesN, 8, true);
+                testCasComplexityCheck(algo, family, sizesM, 1 << 18, false);
+                if (expectedSlopeM(algo, family, SHORT_SIZES_M[SHORT_SIZES_M.length - 1]) < 0) {
+                    testCasComplexityCheck(algo, family, SHORT_SIZES_M, 1 << 18, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Measures one algorithm on one family over a range of sizes and checks
+     * the fitted slopes.
+     *
+     * @param algo   the name of the algorithm.
+     * @param family the name of the family.
+     * @param sizes  the values of the varying size.
+     * @param fixed  the value of the other size.
+     * @param inN    true if n varies (m fixed), false if m varies (n fixed).
+     */
+    void testCasComplexityCheck(String algo, String family, int[] sizes, int fixed, boolean inN) {
+        double[] slopes = slopes(algo, family, sizes, fixed, inN);
+        double expected = inN ? 1 : expectedSlopeM(algo, family, sizes[sizes.length - 1]);
+        String expectedTime = inN ? "1.0" : timeCheckedInM(algo) ? "" + expectedTimeSlopeM(algo, family) : "-";
+        String name = algo + " / " + family + " / " + (inN ? "n" : "m <= " + sizes[sizes.length - 1]);
+        if (accepted(algo, family, sizes, inN, slopes)) {
+            System.out.println("Test passed for " + name + " (pente cpt " + round(slopes[0]) + ", pente temps "
+                    + round(slopes[1]) + ", attendues " + expected + " et " + expectedTime + ").");
+        } else {
+            failures++;
+            System.out.println("Test failed for " + name + ". Expected slopes " + expected + " and " + expectedTime
+                    + ", Got: cpt " + round(slopes[0]) + ", temps " + round(slopes[1]));
+        }
+    }
+
+    /**
+     * Measures one algorithm on one family over a range of sizes and fits the
+     * slopes.
+     *
+     * @param algo   the name of the algorithm.
+     * @param family the name of the family.
+     * @param sizes  the values of the varying size.
+     * @param fixed  the value of the other size.
+     * @param inN    true if n varies (m fixed), false if m varies (n fixed).
+     * @return the slopes of cpt and of the time.
+     */
+    double[] slopes(String algo, String family, int[] sizes, int fixed, boolean inN) {
+        double[] x = new double[sizes.length];
+        double[] ops = new double[sizes.length];
+        double[] time = new double[sizes.length];
+        ArrayList<Character> text = inN ? null : generate(family, fixed);
+        String pattern = inN ? makePattern(family, fixed) : null;
+        for (int i = 0; i < sizes.length; i++) {
+            ArrayList<Character> t = inN ? generate(family, sizes[i]) : text;
+            String p = inN ? pattern : makePattern(family, sizes[i]);
+            long[] r = measure(algo, t, p);
+            x[i] = inN ? t.size() : sizes[i];
+            ops[i] = r[0];
+            time[i] = r[1];
+        }
+        return new double[] { slope(x, ops), slope(x, time) };
+    }
+
+    /**
+     * Compares measured slopes with the expected ones.
+     *
+     * @param algo   the name of the algorithm.
+     * @param family the name of the family.
+     * @param sizes  the values of the varying size.
+     * @param inN    true if n varies (m fixed), false if m varies (n fixed).
+     * @param slopes the slopes of cpt and of the time.
+     * @return true if the slopes match the expected complexity.
+     */
+    boolean accepted(String algo, String family, int[] sizes, boolean inN, double[] slopes) {
+        if (inN) {
+            return Math.abs(slopes[0] - 1) <= CPT_TOLERANCE && slopes[1] <= 1 + TIME_TOLERANCE;
+        }
+        // In m the slopes are upper bounds: a longer pattern may have fewer
+        // occurrences to verify, or allow longer shifts
+        double expected = expectedSlopeM(algo, family, sizes[sizes.length - 1]);
+        boolean ok = slopes[0] <= expected + (expected < 0 ? SUBLINEAR_TOLERANCE : CPT_TOLERANCE);
+        if (timeCheckedInM(algo)) {
+            ok = ok && slopes[1] <= expectedTimeSlopeM(algo, family) + TIME_TOLERANCE;
+        }
+        return ok;
+    }
+
+    /**
+     * Rounds a slope for display.
+     *
+     * @param v the slope.
+     * @return the slope rounded to 2 decimals.
+     */
+    double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+}
@@ -0,0 +1,480 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Command-line search of a pattern in all the files of a directory tree.
+ * The files are cut into blocks that overlap by m-1 bytes, so that each
+ * occurrence lies entirely in exactly one block. A pool of I/O workers reads
+ * the blocks into a bounded pool of reusable buffers, a pool of search workers
+ * runs the chosen algorithm on them, and the matches are
+ * printed in a stable order (file path, then position) as "file:position",
+ * with 1-based byte positions.
+ * Files are read as ISO-8859-1 (one character per byte).
+ *
+ * Usage: java DirectorySearch [-a algo] [-io n] [-j n] [-b n] [-s bytes] pattern directory
+ */
+class DirectorySearch {
+
+    /**
+     * Global counter: total number of operations of the search workers.
+     */
+    long cpt;
+
+    /**
+     * Algorithm used by the search workers: naive, kmp, automaton, rabinKarp,
+     * boyerMoore or turbo.
+     */
+    String algo = "kmp";
+
+    /**
+     * Names of the available algorithms.
+     */
+    static final List<String> ALGOS = List.of("naive", "kmp", "automaton", "rabinKarp", "boyerMoore", "turbo");
+
+    /**
+     * Number of I/O workers.
+     */
+    int ioThreads = 2;
+
+    /**
+     * Number of search workers.
+     */
+    int searchThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Number of byte buffers in the pool. The search workers also keep one
+     * ArrayList of bufferSize references each, filled from {@link #LATIN1}, so
+     * memory is bounded by nbBuffers * bufferSize bytes for the buffers plus
+     * searchThreads * bufferSize references for the texts.
+     */
+    int nbBuffers = 16;
+
+    /**
+     * Size of a buffer in bytes.
+     */
+    int bufferSize = 1 << 20;
+
+    /**
+     * The 256 ISO-8859-1 characters, boxed once: Character.valueOf only caches
+     * 0 to 127, and would allocate a new object for every byte above.
+     */
+    static final Character[] LATIN1 = new Character[256];
+
+    static {
+        for (int i = 0; i < LATIN1.length; i++) {
+            LATIN1[i] = (char) i;
+        }
+    }
+
+    /**
+     * Number of bytes read by the last search.
+     */
+    long bytesRead;
+
+    /**
+     * A block of a file to read and search.
+     */
+    static class Block {
+        Path file;
+        long offset;
+        int length;
+        byte[] buf;
+    }
+
+    /**
+     * Entry point of the command-line tool.
+     *
+     * @param args the options, the pattern and the directory.
+     */
+    public static void main(String[] args) {
+        DirectorySearch ds = new DirectorySearch();
+        int k = 0;
+        try {
+            while (k < args.length - 2 && args[k].startsWith("-")) {
+                String option = args[k];
+                String value = args[k + 1];
+                if (option.equals("-a")) {
+                    ds.algo = value;
+                } else if (option.equals("-io")) {
+                    ds.ioThreads = Integer.parseInt(value);
+                } else if (option.equals("-j")) {
+                    ds.searchThreads = Integer.parseInt(value);
+                } else if (option.equals("-b")) {
+                    ds.nbBuffers = Integer.parseInt(value);
+                } else if (option.equals("-s")) {
+                    ds.bufferSize = Integer.parseInt(value);
+                } else {
+                    throw new IllegalArgumentException("Unknown option " + option);
+                }
+                k += 2;
+            }
+            if (args.length - k != 2) {
+                throw new IllegalArgumentException("Missing pattern or directory");
+            }
+            long t1 = System.nanoTime();
+            ds.search(Path.of(args[k + 1]), args[k], System.out);
+            long t2 = System.nanoTime();
+            System.out.flush();
+            System.err.println(ds.bytesRead + " octets en " + (t2 - t1) / 1000000 + " ms ("
+                    + ds.throughput(t2 - t1) + " Mo/s)");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(
+                    "Usage: java DirectorySearch [-a algo] [-io n] [-j n] [-b n] [-s bytes] pattern directory");
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Main method: searches "class" in the src directory, then runs the tests.
+     */
+    void principal() {
+        try {
+            search(Path.of("src"), "class", System.out);
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+        testDirectorySearch();
+        testDirectorySearchEfficiency();
+    }
+
+    /**
+     * Searches a pattern in all the regular files of a directory tree and
+     * prints the matches in file order, then position order.
+     *
+     * @param root    the directory to walk.
+     * @param pattern the pattern to search for.
+     * @param out     the stream where the matches are printed.
+     * @throws IOException if the tree cannot be walked or a file cannot be read.
+     */
+    void search(Path root, String pattern, PrintStream out) throws IOException {
+        int m = pattern.length();
+        if (m == 0) {
+            throw new IllegalArgumentException("Empty pattern");
+        }
+        if (!ALGOS.contains(algo)) {
+            throw new IllegalArgumentException("Unknown algorithm " + algo + ", expected one of " + ALGOS);
+        }
+        int size = Math.max(bufferSize, 2 * m);
+        int step = size - (m - 1);
+
+        ArrayList<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toCollection(ArrayList::new));
+        }
+
+        // Cut every file into blocks overlapping by m-1 bytes
+        ArrayList<Block> blocks = new ArrayList<>();
+        bytesRead = 0;
+        for (Path file : files) {
+            long fileSize = Files.size(file);
+            bytesRead += fileSize;
+            for (long offset = 0; offset + m <= fileSize; offset += step) {
+                Block block = new Block();
+                block.file = file;
+                block.offset = offset;
+                block.length = (int) Math.min(size, fileSize - offset);
+                blocks.add(block);
+            }
+        }
+
+        ArrayBlockingQueue<byte[]> pool = new ArrayBlockingQueue<>(nbBuffers);
+        for (int i = 0; i < nbBuffers; i++) {
+            pool.add(new byte[size]);
+        }
+        ExecutorService io = Executors.newFixedThreadPool(ioThreads);
+        ExecutorService workers = Executors.newFixedThreadPool(searchThreads);
+        ThreadLocal<ArrayList<Character>> texts = ThreadLocal.withInitial(() -> new ArrayList<>(size));
+        ArrayList<CompletableFuture<ArrayList<Long>>> results = new ArrayList<>();
+        long[] ops = new long[1];
+
+        for (Block block : blocks) {
+            CompletableFuture<ArrayList<Long>> future = new CompletableFuture<>();
+            results.add(future);
+            io.submit(() -> {
+                try {
+                    block.buf = pool.take();
+                    read(block);
+                } catch (Throwable e) {
+                    if (block.buf != null) {
+                        pool.add(block.buf);
+                    }
+                    future.completeExceptionally(e);
+                    return;
+                }
+                workers.submit(() -> {
+                    try {
+                        ArrayList<Character> text = texts.get();
+                        text.clear();
+                        try {
+                            for (int i = 0; i < block.length; i++) {
+                                text.add(LATIN1[block.buf[i] & 0xFF]);
+                            }
+                        } finally {
+                            pool.add(block.buf);
+                        }
+                        ArrayList<Long> positions = new ArrayList<>();
+                        for (int p : searchBlock(text, pattern, ops)) {
+                            positions.add(block.offset + p);
+                        }
+                        future.complete(positions);
+                    } catch (Throwable e) {
+                        // an Error (e.g. OutOfMemoryError) must not leave the printer waiting
+                        future.completeExceptionally(e);
+                    }
+                });
+            });
+        }
+
+        try {
+            for (int i = 0; i < blocks.size(); i++) {
+                for (long p : results.get(i).get()) {
+                    out.println(blocks.get(i).file + ":" + p);
+                }
+                results.set(i, null); // release the printed positions
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Search interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            io.shutdownNow();
+            workers.shutdownNow();
+        }
+        cpt += ops[0];
+    }
+
+    /**
+     * Reads a block of a file into its buffer.
+     *
+     * @param block the block to read.
+     * @throws IOException if the file cannot be read.
+     */
+    void read(Block block) throws IOException {
+        try (FileChannel channel = FileChannel.open(block.file, StandardOpenOption.READ)) {
+            ByteBuffer bb = ByteBuffer.wrap(block.buf, 0, block.length);
+            long position = block.offset;
+            while (bb.hasRemaining()) {
+                int r = channel.read(bb, position);
+                if (r < 0) {
+                    throw new IOException(block.file + " was truncated during the search");
+                }
+                position += r;
+            }
+        }
+    }
+
+    /**
+     * Runs the chosen algorithm on a block.
+     *
+     * @param text    the text of the block.
+     * @param pattern the pattern to search for.
+     * @param ops     accumulates the operations of the algorithms.
+     * @return the 1-based positions of the occurrences in the block.
+     */
+    ArrayList<Integer> searchBlock(ArrayList<Character> text, String pattern, long[] ops) {
+        ArrayList<Integer> result;
+        long c;
+        if (algo.equals("naive")) {
+            NaiveAlgo engine = new NaiveAlgo();
+            result = engine.naiveAlgo(text, pattern);
+            c = engine.cpt;
+        } else if (algo.equals("kmp")) {
+            KMPAlgo engine = new KMPAlgo();
+            result = engine.kmpAlgo(text, pattern);
+            c = engine.cpt;
+        } else if (algo.equals("automaton")) {
+            KMPAlgo engine = new KMPAlgo();
+            result = engine.kmpAutomatonAlgo(text, pattern);
+            c = engine.cpt;
+        } else if (algo.equals("rabinKarp")) {
+            RabinKarpAlgo engine = new RabinKarpAlgo();
+            result = engine.rabinKarpAlgo(text, pattern);
+            c = engine.cpt;
+        } else if (algo.equals("boyerMoore")) {
+            BoyerMooreAlgo engine = new BoyerMooreAlgo();
+            result = engine.boyerMooreAlgo(text, pattern);
+            c = engine.cpt;
+        } else if (algo.equals("turbo")) {
+            BoyerMooreAlgo engine = new BoyerMooreAlgo();
+            result = engine.turboBoyerMooreAlgo(text, pattern);
+            c = engine.cpt;
+        } else {
+            throw new IllegalArgumentException("Unknown algorithm " + algo);
+        }
+        synchronized (ops) {
+            ops[0] += c;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the throughput of the last search.
+     *
+     * @param nanos the duration of the search in nanoseconds.
+     * @return the throughput in megabytes per second.
+     */
+    double throughput(long nanos) {
+        return bytesRead / (1024.0 * 1024.0) / (nanos / 1e9);
+    }
+
+    /**
+     * Test method for the directory search.
+     */
+    void testDirectorySearch() {
+        System.out.println("Test DirectorySearch");
+        NaiveAlgo naive = new NaiveAlgo();
+        try {
+            Path dir = Files.createTempDirectory("sae-ds");
+            Files.createDirectory(dir.resolve("sub"));
+            writeText(dir.resolve("a.txt"), naive.generateSequenceText(5000));
+            writeText(dir.resolve("sub/b.txt"), naive.generateLettreText(300, 'a'));
+            writeText(dir.resolve("sub/c.txt"), naive.generateText(10));
+            writeText(dir.resolve("sub/d.txt"), naive.generateLettreText(100, '\u00E9'));
+            writeText(dir.resolve("vide.txt"), new ArrayList<>());
+
+            for (String a : ALGOS) {
+                algo = a;
+                bufferSize = 16; // forces matches across block boundaries
+                nbBuffers = 3;
+                testCasDirectorySearch(dir, "aaaaab");
+                testCasDirectorySearch(dir, "aaaa");
+                testCasDirectorySearch(dir, "\u00E9\u00E9\u00E9");
+            }
+            bufferSize = 1 << 20;
+            nbBuffers = 16;
+            algo = "kmp";
+            deleteTree(dir);
+        } catch (IOException e) {
+            System.out.println("Test failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compares the output of the directory search with the naive algorithm run
+     * on each file.
+     *
+     * @param dir     the directory to search.
+     * @param pattern the pattern to search for.
+     * @throws IOException if a file cannot be read.
+     */
+    void testCasDirectorySearch(Path dir, String pattern) throws IOException {
+        StringBuilder attendu = new StringBuilder();
+        ArrayList<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toCollection(ArrayList::new));
+        }
+        for (Path file : files) {
+            ArrayList<Character> text = new ArrayList<>();
+            for (byte b : Files.readAllBytes(file)) {
+                text.add((char) (b & 0xFF));
+            }
+            for (int p : new NaiveAlgo().naiveAlgo(text, pattern)) {
+                attendu.append(file).append(':').append(p).append(System.lineSeparator());
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        search(dir, pattern, new PrintStream(bytes, true));
+        if (bytes.toString().equals(attendu.toString())) {
+            System.out.println("Test passed for algorithm " + algo + " and pattern \"" + pattern + "\".");
+        } else {
+            System.out.println("Test failed for algorithm " + algo + " and pattern \"" + pattern + "\". Expected:\n"
+                    + attendu + "Got:\n" + bytes);
+        }
+    }
+
+    /**
+     * Measures the throughput of the directory search for a growing number of
+     * search workers.
+     */
+    void testDirectorySearchEfficiency() {
+        long t1, t2, diffT;
+        NaiveAlgo naive = new NaiveAlgo();
+        System.out.println("----- Tests d'efficacité de la recherche dans un répertoire : -----\n");
+        System.out.println(" -- 32 fichiers de 1 Mo, alphabet entier aléatoire et motif \"abf\"\n");
+        try {
+            Path dir = Files.createTempDirectory("sae-ds");
+            for (int f = 0; f < 32; f++) {
+                writeText(dir.resolve("f" + f + ".txt"), naive.generateText(1 << 20));
+            }
+            algo = "kmp";
+            bufferSize = 1 << 18;
+            PrintStream nul = new PrintStream(PrintStream.nullOutputStream());
+            for (int j = 1; j <= 8; j *= 2) {
+                searchThreads = j;
+                cpt = 0;
+                t1 = System.nanoTime();
+                search(dir, "abf", nul);
+                t2 = System.nanoTime();
+                diffT = t2 - t1;
+                System.out.println("Workers de recherche : " + j);
+                System.out.println("Temps d'exécution : " + diffT + " ns");
+                System.out.println("Débit : " + throughput(diffT) + " Mo/s");
+                System.out.println("Nombre d'opérations (cpt) : " + cpt);
+                System.out.println();
+            }
+            searchThreads = Runtime.getRuntime().availableProcessors();
+            bufferSize = 1 << 20;
+            deleteTree(dir);
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+        System.out.println("--------------------------------------------------");
+    }
+
+    /**
+     * Writes a text to a file, one byte per character.
+     *
+     * @param file the file to write.
+     * @param text the text.
+     * @throws IOException if the file cannot be written.
+     */
+    void writeText(Path file, ArrayList<Character> text) throws IOException {
+        byte[] bytes = new byte[text.size()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (char) text.get(i);
+        }
+        Files.write(file, bytes);
+    }
+
+    /**
+     * Deletes a directory tree.
+     *
+     * @param dir the directory to delete.
+     * @throws IOException if a file cannot be deleted.
+     */
+    void deleteTree(Path dir) throws IOException {
+        ArrayList<Path> paths;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            paths = walk.sorted((a, b) -> b.compareTo(a)).collect(Collectors.toCollection(ArrayList::new));
+        }
+        for (Path p : paths) {
+            Files.delete(p);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Search of a pattern directly inside a gzip file, without decompressing the
+ * whole file in memory.
+ * A first thread inflates the file into a ring of reusable buffers while the
+ * calling thread runs a streaming KMP matcher over them. The state of the
+ * matcher is kept from one buffer to the next, so matches that span buffer
+ * boundaries are found, and the memory used does not depend on the file size.
+ * The file is read as ISO-8859-1 (one character per byte).
+ */
+class GzipSearch {
+
+    /**
+     * Global counter to measure the matcher's performance.
+     */
+    long cpt;
+
+    /**
+     * Number of buffers in the ring.
+     */
+    int nbBuffers = 4;
+
+    /**
+     * Size of a buffer in bytes.
+     */
+    int bufferSize = 1 << 16;
+
+    /**
+     * Time spent inflating, in nanoseconds (last search).
+     */
+    long inflateTime;
+
+    /**
+     * Time spent matching, in nanoseconds (last search).
+     */
+    long matchTime;
+
+    /**
+     * A buffer of the ring and the number of bytes it holds (-1 marks the end).
+     */
+    static class Buffer {
+        byte[] data;
+        int length;
+    }
+
+    /**
+     * Main method to run tests of the gzip search.
+     */
+    void principal() {
+        testGzipSearch();
+        testGzipSearchEfficiency();
+    }
+
+    /**
+     * Searches a pattern in a gzip file, inflating and matching in parallel.
+     *
+     * @param file    the gzip file.
+     * @param pattern the pattern to search for.
+     * @return the 1-based positions of the occurrences in the uncompressed text.
+     * @throws IOException if the file cannot be read or is not a gzip file.
+     */
+    ArrayList<Long> gzipSearch(Path file, String pattern) throws IOException {
+        ArrayBlockingQueue<Buffer> free = new ArrayBlockingQueue<>(nbBuffers);
+        ArrayBlockingQueue<Buffer> filled = new ArrayBlockingQueue<>(nbBuffers + 1);
+        for (int i = 0; i < nbBuffers; i++) {
+            Buffer b = new Buffer();
+            b.data = new byte[bufferSize];
+            free.add(b);
+        }
+        Throwable[] error = new Throwable[1];
+        inflateTime = 0;
+        ArrayList<Long> result = new ArrayList<>();
+        Matcher matcher = new Matcher(pattern); // may throw: before the thread starts
+
+        Thread inflater = new Thread(() -> {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file), bufferSize)) {
+                int r = 0;
+                while (r >= 0) {
+                    Buffer b = free.take();
+                    long t1 = System.nanoTime();
+                    r = in.readNBytes(b.data, 0, b.data.length);
+                    inflateTime += System.nanoTime() - t1;
+                    if (r == 0) {
+                        r = -1;
+                    }
+                    b.length = r;
+                    filled.put(b);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                // any failure ends the stream, so the matcher never waits forever
+                error[0] = e;
+                Buffer end = new Buffer();
+                end.length = -1;
+                filled.offer(end);
+            }
+        }, "gzip-inflater");
+        inflater.setDaemon(true);
+        inflater.start();
+
+        matchTime = 0;
+        try {
+            Buffer b = filled.take();
+            while (b.length >= 0) {
+                long t1 = System.nanoTime();
+                matcher.feed(b.data, b.length, result);
+                matchTime += System.nanoTime() - t1;
+                free.put(b);
+                b = filled.take();
+            }
+            inflater.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Search interrupted", e);
+        } finally {
+            inflater.interrupt(); // no effect once the inflater has ended
+        }
+        if (error[0] instanceof IOException) {
+            throw (IOException) error[0];
+        } else if (error[0] instanceof RuntimeException) {
+            throw (RuntimeException) error[0];
+        } else if (error[0] instanceof Error) {
+            throw (Error) error[0];
+        }
+        return result;
+    }
+
+    /**
+     * Searches a pattern in a gzip file with a single thread: each buffer is
+     * inflated then matched. Used as the reference for the pipelined search.
+     *
+     * @param file    the gzip file.
+     * @param pattern the pattern to search for.
+     * @return the 1-based positions of the occurrences in the uncompressed text.
+     * @throws IOException if the file cannot be read or is not a gzip file.
+     */
+    ArrayList<Long> gzipSearchSequential(Path file, String pattern) throws IOException {
+        ArrayList<Long> result = new ArrayList<>();
+        Matcher matcher = new Matcher(pattern);
+        byte[] data = new byte[bufferSize];
+        inflateTime = 0;
+        matchTime = 0;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), bufferSize)) {
+            int r = 1;
+            while (r > 0) {
+                long t1 = System.nanoTime();
+                r = in.readNBytes(data, 0, data.length);
+                long t2 = System.nanoTime();
+                matcher.feed(data, r, result);
+                long t3 = System.nanoTime();
+                inflateTime += t2 - t1;
+                matchTime += t3 - t2;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Streaming KMP matcher: the position in the pattern is kept between two
+     * calls to {@link #feed}.
+     */
+    class Matcher {
+        String pattern;
+        int[] pi;
+        int j = 0; // index for pattern
+        long pos = 0; // number of bytes already read
+
+        /**
+         * Prepares the matcher for a pattern.
+         *
+         * @param pattern the pattern to search for.
+         */
+        Matcher(String pattern) {
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Empty pattern");
+            }
+            this.pattern = pattern;
+            this.pi = new KMPAlgo().buildPrefixTable(pattern);
+        }
+
+        /**
+         * Runs the matcher over the next bytes of the text.
+         *
+         * @param data   the buffer.
+         * @param length the number of bytes of the buffer to read.
+         * @param result receives the 1-based positions of the occurrences.
+         */
+        void feed(byte[] data, int length, ArrayList<Long> result) {
+            int m = pattern.length();
+            int i = 0;
+            while (i < length) {
+                cpt++;
+                if ((char) (data[i] & 0xFF) == pattern.charAt(j)) {
+                    i++;
+                    j++;
+                    if (j == m) {
+                        result.add(pos + i - m + 1);
+                        j = pi[j - 1];
+                    }
+                } else {
+                    if (j > 0) {
+                        j = pi[j - 1];
+                    } else {
+                        i++;
+                    }
+                }
+            }
+            pos += length;
+        }
+    }
+
+    /**
+     * Test method for the gzip search.
+     */
+    void testGzipSearch() {
+        System.out.println("Test GzipSearch");
+        NaiveAlgo naive = new NaiveAlgo();
+        try {
+            bufferSize = 7; // forces matches across buffer boundaries
+            testCasGzipSearch(naive.generateSequenceText(20000), "aaaaab");
+            testCasGzipSearch(naive.generateLettreText(1000, 'a'), "aaaa");
+            testCasGzipSearch(naive.generateText(20000), "ab");
+            bufferSize = 1 << 16;
+            testCasGzipSearch(naive.generateSequenceText(500000), "aaaaabbbbbccccc");
+            testCasGzipSearchError();
+        } catch (IOException e) {
+            System.out.println("Test failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks that an empty pattern and a file that is not gzip end with an
+     * exception and leave no inflater thread behind.
+     *
+     * @throws IOException if the test file cannot be written.
+     */
+    void testCasGzipSearchError() throws IOException {
+        Path file = writeGzip(new NaiveAlgo().generateText(1000));
+        Path notGzip = Files.createTempFile("sae-gz", ".txt");
+        Files.write(notGzip, new byte[] { 'a', 'b', 'c' });
+        boolean thrown = false;
+        try {
+            gzipSearch(file, "");
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        try {
+            gzipSearch(notGzip, "ab");
+            thrown = false;
+        } catch (IOException e) {
+            // expected
+        }
+        Files.delete(file);
+        Files.delete(notGzip);
+        boolean alive = false;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            alive = alive || t.getName().equals("gzip-inflater") && t.isAlive();
+        }
+        if (thrown && !alive) {
+            System.out.println("Test passed for the errors (empty pattern, file not gzip).");
+        } else {
+            System.out.println("Test failed for the errors. Exceptions: " + thrown + ", inflater alive: " + alive);
+        }
+    }
+
+    /**
+     * Compresses a text, searches it with both gzip searches and compares the
+     * results with the KMP algorithm on the uncompressed text.
+     *
+     * @param text    the text.
+     * @param pattern the pattern to search for.
+     * @throws IOException if the temporary file cannot be written.
+     */
+    void testCasGzipSearch(ArrayList<Character> text, String pattern) throws IOException {
+        Path file = writeGzip(text);
+        ArrayList<Long> resultAttendu = new ArrayList<>();
+        for (int p : new KMPAlgo().kmpAlgo(text, pattern)) {
+            resultAttendu.add((long) p);
+        }
+        ArrayList<Long> result = gzipSearch(file, pattern);
+        ArrayList<Long> result2 = gzipSearchSequential(file, pattern);
+        Files.delete(file);
+        if (result.equals(resultAttendu) && result2.equals(resultAttendu)) {
+            System.out.println("Test passed for pattern \"" + pattern + "\".");
+        } else {
+            System.out.println("Test failed for pattern \"" + pattern + "\". Expected: " + resultAttendu + ", Got: "
+                    + result + " and " + result2);
+        }
+    }
+
+    /**
+     * Compares the pipelined search with the sequential one on gzip files of
+     * growing size. The overlap is the part of the shorter stage that was
+     * hidden behind the other one: 0 means that the stages ran one after the
+     * other, 1 that the shorter one was fully hidden.
+     */
+    void testGzipSearchEfficiency() {
+        long t1, t2, diffT;
+        NaiveAlgo naive = new NaiveAlgo();
+        System.out.println("----- Tests d'efficacité de la recherche dans un fichier gzip : -----\n");
+        System.out.println(" -- Texte avec alphabet restreint {a,b,c,d} par séquences et motif \"aaaaab\"\n");
+        int size = 2000000;
+        String pattern = "aaaaab";
+        try {
+            for (int i = 1; i <= 4; i++) {
+                Path file = writeGzip(naive.generateSequenceText(size));
+                System.out.println("Taille du texte : " + size);
+
+                t1 = System.nanoTime();
+                gzipSearchSequential(file, pattern);
+                t2 = System.nanoTime();
+                diffT = t2 - t1;
+                System.out.println("Séquentiel - temps : " + diffT + " ns (décompression " + inflateTime
+                        + " ns, recherche " + matchTime + " ns)");
+
+                cpt = 0;
+                t1 = System.nanoTime();
+                gzipSearch(file, pattern);
+                t2 = System.nanoTime();
+                diffT = t2 - t1;
+                double overlap = (inflateTime + matchTime - diffT) / (double) Math.min(inflateTime, matchTime);
+                System.out.println("Pipeline - temps : " + diffT + " ns (décompression " + inflateTime
+                        + " ns, recherche " + matchTime + " ns)");
+                System.out.println("Recouvrement : " + Math.max(0, Math.min(1, overlap)));
+                System.out.println("Nombre d'opérations (cpt) : " + cpt);
+                System.out.println("Mémoire des tampons : " + (long) nbBuffers * bufferSize + " octets");
+                System.out.println();
+                Files.delete(file);
+                size = size * 2;
+            }
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+        System.out.println("--------------------------------------------------");
+    }
+
+    /**
+     * Writes a text to a temporary gzip file, one byte per character.
+     *
+     * @param text the text.
+     * @return the path of the gzip file.
+     * @throws IOException if the file cannot be written.
+     */
+    Path writeGzip(ArrayList<Character> text) throws IOException {
+        Path file = Files.createTempFile("sae-gz", ".gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            byte[] bytes = new byte[text.size()];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) (char) text.get(i);
+            }
+            out.write(bytes);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,242 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Implementation of the Boyer-Moore-Horspool string search algorithm: a single
+ * bad character table indexed by the text character aligned with the end of
+ * the pattern, and a guard on the last and first characters before the full
+ * comparison.
+ * Includes efficiency tests against Boyer-Moore and utility methods for
+ * generating test texts.
+ */
+class HorspoolAlgo {
+
+    /**
+     * Global counter to measure the efficiency of the algorithm.
+     */
+    long cpt;
+
+    /**
+     * Main method to run Horspool algorithm tests.
+     */
+    void principal() {
+        testHorspoolAlgo();
+        testHorspoolAlgoEfficiency();
+    }
+
+    /**
+     * Implements the Horspool algorithm to find all occurrences of a pattern in a text.
+     * @param text The text in which to search for the pattern.
+     * @param pattern The pattern to search for.
+     * @return A list of start indices for each occurrence of the pattern in the text.
+     */
+    ArrayList<Integer> horspoolAlgo(ArrayList<Character> text, String pattern) {
+        return horspoolAlgo(text, pattern, new SearchBudget());
+    }
+
+    /**
+     * Horspool algorithm with an operation budget, a deadline and a cancellation
+     * token, charged for the shift table, and one unit per alignment and per
+     * character compared.
+     * @param text The text in which to search for the pattern.
+     * @param pattern The pattern to search for.
+     * @param budget The budget of the search; its status tells whether the search was stopped.
+     * @return The start indices of the occurrences found before the search ended or was stopped.
+     */
+    ArrayList<Integer> horspoolAlgo(ArrayList<Character> text, String pattern, SearchBudget budget) {
+
+        ArrayList<Integer> result = new ArrayList<>();
+        int n = text.size();
+        int m = pattern.length();
+        if (m == 0 || m > n) {
+            return result;
+        }
+        int[] shift = new BoyerMooreAlgo().buildBadCharTable(pattern);
+        if (budget.exceeded(m)) {
+            return result;
+        }
+        char first = pattern.charAt(0);
+        char last = pattern.charAt(m - 1);
+
+        int indPattern = 0;
+        int work = 0; // units of work not yet charged to the budget
+        while (indPattern <= n - m) {
+            cpt++; // increment the counter
+            if (++work >= SearchBudget.BATCH) {
+                if (budget.exceeded(work)) {
+                    return result;
+                }
+                work = 0;
+            }
+            char c = text.get(indPattern + m - 1);
+            if (c == last && text.get(indPattern) == first) {
+                int j = 1;
+                while (j < m - 1 && text.get(indPattern + j) == pattern.charAt(j)) {
+                    j++;
+                }
+                if (j >= m - 1) {
+                    result.add(indPattern + 1); // 1st occurrence at index 1
+                }
+                work += j;
+            }
+            indPattern += c < shift.length ? shift[c] : m;
+        }
+        return result;
+    }
+
+    /**
+     * Test method for the Horspool algorithm.
+     */
+    void testHorspoolAlgo() {
+
+        ArrayList<Character> texte1 = new ArrayList<>();
+        for (char c : "Il a regardé dedans, est entré dedans, puis a caché la clé dedans.".toCharArray()) {
+            texte1.add(c);
+        }
+        testCasHorspoolAlgo(texte1, "dedans", new ArrayList<>(Arrays.asList(14, 32, 60)));
+
+        ArrayList<Character> texte2 = new ArrayList<>();
+        for (char c : "Il est entré dans la maison, a nettoyé la maison, puis a quitté la maison.".toCharArray()) {
+            texte2.add(c);
+        }
+        testCasHorspoolAlgo(texte2, "maison", new ArrayList<>(Arrays.asList(22, 43, 68)));
+
+        ArrayList<Character> texte3 = new ArrayList<>();
+        for (char c : "Le soleil brille sur la mer et les oiseaux chantent joyeusement.".toCharArray()) {
+            texte3.add(c);
+        }
+        testCasHorspoolAlgo(texte3, "ordinateur", new ArrayList<>());
+
+        NaiveAlgo naive = new NaiveAlgo();
+        ArrayList<Character> texte4 = generateRandomText(100000);
+        testCasHorspoolAlgo(texte4, "ab", naive.naiveAlgo(texte4, "ab"));
+        testCasHorspoolAlgo(texte4, "x", naive.naiveAlgo(texte4, "x"));
+        ArrayList<Character> texte5 = generateSequenceText(100000);
+        testCasHorspoolAlgo(texte5, "aaaaab", naive.naiveAlgo(texte5, "aaaaab"));
+        ArrayList<Character> texte6 = generateLettreText(10000, 'a');
+        testCasHorspoolAlgo(texte6, "aaa", naive.naiveAlgo(texte6, "aaa"));
+    }
+
+    /**
+     * Tests a specific case of the Horspool algorithm.
+     * @param text The text in which to search for the pattern.
+     * @param pattern The pattern to search for.
+     * @param resultAttendu The expected list of indices for the pattern occurrences.
+     */
+    void testCasHorspoolAlgo(ArrayList<Character> text, String pattern, ArrayList<Integer> resultAttendu) {
+
+        ArrayList<Integer> result = horspoolAlgo(text, pattern);
+
+        if (result.equals(resultAttendu)) {
+            System.out.println("Test passed for pattern \"" + pattern + "\".");
+        } else {
+            System.out.println("Test failed for pattern \"" + pattern + "\". Expected: "
+                + resultAttendu + ", Got: " + result);
+        }
+    }
+
+    /**
+     * Generates a random text of the specified size.
+     * @param size The size of the text to generate.
+     * @return A list of characters representing the generated text.
+     */
+    ArrayList<Character> generateRandomText(int size) {
+        char[] alphabet = { 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r',
+                's', 't', 'u', 'v', 'w', 'x', 'y', 'z' };
+        ArrayList<Character> text = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            text.add(alphabet[(int) (Math.random() * alphabet.length)]);
+        }
+        return text;
+    }
+
+    /**
+     * Generates a random text with a restricted alphabet for efficiency testing.
+     * @param size The size of the text to generate.
+     * @return A list of characters representing the generated text.
+     */
+    ArrayList<Character> generateSequenceText(int size) {
+        char[] alphabet = { 'a', 'b', 'c', 'd' };
+        size = size / 5;
+        ArrayList<Character> text = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            char lettre = alphabet[(int) (Math.random() * alphabet.length)];
+            for (int j = 0; j < 5; j++) {
+                text.add(lettre);
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Generates a sequence of the same letter of the specified size for efficiency testing.
+     * @param size The size of the text to generate.
+     * @param lettre The letter to repeat.
+     * @return A list of characters representing the generated text.
+     */
+    ArrayList<Character> generateLettreText(int size, char lettre) {
+        ArrayList<Character> text = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            text.add(lettre);
+        }
+        return text;
+    }
+
+    /**
+     * Tests the efficiency of the Horspool algorithm against Boyer-Moore on a
+     * repetitive text and on a random text.
+     */
+    void testHorspoolAlgoEfficiency() {
+
+        BoyerMooreAlgo bm = new BoyerMooreAlgo();
+        System.out.println("----- Tests d'efficacité de l'algorithme de Horspool : -----\n");
+        System.out.println(" -- Texte avec alphabet restreint {a} et motif \"ab\"\n");
+        int size = 500000;
+        String pattern = "ab";
+        for (int i = 1; i <= 6; i++) {
+            ArrayList<Character> texte = generateLettreText(size, 'a');
+            testCompareBoyerMoore(bm, texte, pattern);
+            size = size * 2;
+        }
+        System.out.println(" -- Texte avec alphabet entier aleatoire et motif \"abf\"\n");
+        size = 500000;
+        pattern = "abf";
+        for (int i = 1; i <= 6; i++) {
+            ArrayList<Character> texte = generateRandomText(size);
+            testCompareBoyerMoore(bm, texte, pattern);
+            size = size * 2;
+        }
+        System.out.println("--------------------------------------------------");
+    }
+
+    /**
+     * Runs Boyer-Moore then Horspool on the same text and prints both measures.
+     * @param bm The Boyer-Moore instance.
+     * @param texte The text in which to search for the pattern.
+     * @param pattern The pattern to search for.
+     */
+    void testCompareBoyerMoore(BoyerMooreAlgo bm, ArrayList<Character> texte, String pattern) {
+        long t1, t2, diffT;
+        int size = texte.size();
+        System.out.println("Taille du texte : " + size);
+
+        bm.cpt = 0;
+        t1 = System.nanoTime();
+        bm.boyerMooreAlgo(texte, pattern);
+        t2 = System.nanoTime();
+        diffT = t2 - t1; // in nanoseconds
+        System.out.println("Boyer-Moore - temps : " + diffT + " ns, cpt/n : " + (bm.cpt / (double) size));
+
+        cpt = 0; // reset the counter
+        MemoryProfile profil = new MemoryProfile();
+        profil.start();
+        t1 = System.nanoTime();
+        ArrayList<Integer> result = horspoolAlgo(texte, pattern);
+        t2 = System.nanoTime();
+        profil.stop();
+        diffT = t2 - t1;
+        System.out.println("Horspool - temps : " + diffT + " ns, cpt/n : " + (cpt / (double) size));
+        profil.print(texte, result);
+        System.out.println();
+    }
+}
@@ -0,0 +1,302 @@
+import java.util.ArrayList;
+
+/**
+ * Incremental maintenance of the occurrences of a pattern in a text that is
+ * edited in place.
+ * After each edit (insertion, deletion or replacement of a range), only the
+ * window of length edit + 2(m-1) around the edit is searched again.
+ * The occurrences are kept in a gap buffer: the occurrences before the gap are
+ * stored as absolute positions, the occurrences after the gap are stored as
+ * distances to the end of the text, so an edit never has to rewrite the
+ * positions that follow it.
+ */
+class IncrementalMatchAlgo {
+
+    /**
+     * Global counter to measure the algorithm's performance.
+     */
+    long cpt;
+
+    /**
+     * The edited text (0-based indices, as in ArrayList).
+     */
+    ArrayList<Character> text;
+
+    /**
+     * The pattern to maintain the occurrences of.
+     */
+    String pattern;
+
+    /**
+     * Prefix table of the pattern, computed once.
+     */
+    int[] pi;
+
+    /**
+     * Gap buffer of occurrences (0-based start indices).
+     * buf[0..gapStart[ holds absolute positions, buf[gapEnd..buf.length[ holds
+     * distances to the end of the text (text.size() - start).
+     */
+    int[] buf = new int[16];
+    int gapStart = 0;
+    int gapEnd = 16;
+
+    /**
+     * Main method to run tests of the incremental matcher.
+     */
+    void principal() {
+        testIncrementalMatchAlgo();
+        testIncrementalMatchAlgoEfficiency();
+    }
+
+    /**
+     * Initializes the matcher on a text and a pattern with one full search.
+     * The text is kept by reference and must only be modified through
+     * {@link #insert}, {@link #delete} and {@link #replace}.
+     *
+     * @param text    the text to follow.
+     * @param pattern the pattern to search for.
+     */
+    void init(ArrayList<Character> text, String pattern) {
+        this.text = text;
+        this.pattern = pattern;
+        this.pi = pattern.length() == 0 ? new int[0] : new KMPAlgo().buildPrefixTable(pattern);
+        buf = new int[16];
+        gapStart = 0;
+        gapEnd = buf.length;
+        searchWindow(0, text.size());
+    }
+
+    /**
+     * Inserts a string in the text and updates the occurrences.
+     *
+     * @param pos the 0-based index where the string is inserted.
+     * @param s   the string to insert.
+     */
+    void insert(int pos, String s) {
+        replace(pos, 0, s);
+    }
+
+    /**
+     * Deletes a range of the text and updates the occurrences.
+     *
+     * @param pos the 0-based index of the first deleted character.
+     * @param len the number of characters to delete.
+     */
+    void delete(int pos, int len) {
+        replace(pos, len, "");
+    }
+
+    /**
+     * Replaces a range of the text by a string and updates the occurrences.
+     * Only the occurrences starting in [pos - (m-1), pos + len[ can be
+     * affected, and only the window [pos - (m-1), pos + s.length() + (m-1)[ of
+     * the new text is searched again.
+     *
+     * @param pos the 0-based index of the first replaced character.
+     * @param len the number of characters removed.
+     * @param s   the string inserted in their place.
+     */
+    void replace(int pos, int len, String s) {
+        if (pos < 0 || len < 0 || pos + len > text.size()) {
+            throw new IndexOutOfBoundsException("Edit [" + pos + ", " + (pos + len) + "[ out of text of size "
+                    + text.size());
+        }
+        int m = pattern.length();
+        int from = Math.max(0, pos - (m - 1));
+
+        // Bring the gap to the edit and drop the occurrences it can invalidate
+        moveGap(from);
+        while (gapEnd < buf.length && text.size() - buf[gapEnd] < pos + len) {
+            gapEnd++;
+        }
+
+        // Apply the edit: the entries after the gap follow the end of the text
+        text.subList(pos, pos + len).clear();
+        ArrayList<Character> inserted = new ArrayList<>(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            inserted.add(s.charAt(i));
+        }
+        text.addAll(pos, inserted);
+
+        searchWindow(from, Math.min(text.size(), pos + s.length() + m - 1));
+    }
+
+    /**
+     * Moves the gap so that it separates the occurrences starting before
+     * {@code pos} from the others.
+     * The cost is proportional to the number of occurrences crossed, which
+     * stays small for localized edits.
+     *
+     * @param pos the 0-based text position of the gap.
+     */
+    void moveGap(int pos) {
+        int n = text.size();
+        while (gapStart > 0 && buf[gapStart - 1] >= pos) {
+            gapStart--;
+            gapEnd--;
+            buf[gapEnd] = n - buf[gapStart];
+        }
+        while (gapEnd < buf.length && n - buf[gapEnd] < pos) {
+            buf[gapStart] = n - buf[gapEnd];
+            gapStart++;
+            gapEnd++;
+        }
+    }
+
+    /**
+     * Searches the window [from, to[ of the text with the prefix table and
+     * inserts the occurrences found at the gap, which must be at {@code from}.
+     *
+     * @param from the 0-based first index of the window.
+     * @param to   the 0-based end (exclusive) of the window.
+     */
+    void searchWindow(int from, int to) {
+        int m = pattern.length();
+        if (m == 0) {
+            return;
+        }
+        int i = from;
+        int j = 0;
+        while (i < to) {
+            cpt++;
+            if (text.get(i) == pattern.charAt(j)) {
+                i++;
+                j++;
+                if (j == m) {
+                    add(i - m);
+                    j = pi[j - 1];
+                }
+            } else {
+                if (j > 0) {
+                    j = pi[j - 1];
+                } else {
+                    i++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds an occurrence at the gap, growing the buffer when it is full.
+     *
+     * @param start the 0-based start index of the occurrence.
+     */
+    void add(int start) {
+        if (gapStart == gapEnd) {
+            int[] bigger = new int[buf.length * 2];
+            int after = buf.length - gapEnd;
+            System.arraycopy(buf, 0, bigger, 0, gapStart);
+            System.arraycopy(buf, gapEnd, bigger, bigger.length - after, after);
+            gapEnd = bigger.length - after;
+            buf = bigger;
+        }
+        buf[gapStart] = start;
+        gapStart++;
+    }
+
+    /**
+     * Returns the current occurrences.
+     *
+     * @return the list of 1-based starting indices of the occurrences.
+     */
+    ArrayList<Integer> matches() {
+        ArrayList<Integer> result = new ArrayList<>();
+        int n = text.size();
+        for (int i = 0; i < gapStart; i++) {
+            result.add(buf[i] + 1); // 1st occurrence at index 1
+        }
+        for (int i = gapEnd; i < buf.length; i++) {
+            result.add(n - buf[i] + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Tests the incremental matcher against a full naive search after each
+     * edit of a random sequence of edits.
+     */
+    void testIncrementalMatchAlgo() {
+        System.out.println("Test IncrementalMatchAlgo");
+        NaiveAlgo naive = new NaiveAlgo();
+        testCasIncrementalMatchAlgo(naive.generateSequenceText(2000), "aab", "ab");
+        testCasIncrementalMatchAlgo(naive.generateLettreText(500, 'a'), "aaaa", "a");
+        testCasIncrementalMatchAlgo(naive.generateText(2000), "ab", "abcab");
+    }
+
+    /**
+     * Applies random edits to a text and checks the occurrences after each one.
+     *
+     * @param text    the initial text.
+     * @param pattern the pattern to follow.
+     * @param pieces  the strings inserted by the edits.
+     */
+    void testCasIncrementalMatchAlgo(ArrayList<Character> text, String pattern, String pieces) {
+        NaiveAlgo naive = new NaiveAlgo();
+        init(text, pattern);
+        boolean equals = matches().equals(naive.naiveAlgo(text, pattern));
+        for (int k = 0; k < 500 && equals; k++) {
+            int pos = (int) (Math.random() * (text.size() + 1));
+            int len = (int) (Math.random() * Math.min(5, text.size() - pos + 1));
+            String s = pieces.substring(0, (int) (Math.random() * (pieces.length() + 1)));
+            int op = (int) (Math.random() * 3);
+            if (op == 0) {
+                insert(pos, s);
+            } else if (op == 1) {
+                delete(pos, len);
+            } else {
+                replace(pos, len, s);
+            }
+            equals = matches().equals(naive.naiveAlgo(text, pattern));
+        }
+        if (equals) {
+            System.out.println("Test passed for pattern \"" + pattern + "\".");
+        } else {
+            System.out.println("Test failed for pattern \"" + pattern + "\". Expected: "
+                    + naive.naiveAlgo(text, pattern) + ", Got: " + matches());
+        }
+    }
+
+    /**
+     * Compares the cost of an edit followed by an incremental update with the
+     * cost of a full search after the same edit.
+     */
+    void testIncrementalMatchAlgoEfficiency() {
+        long t1, t2, diffT;
+        NaiveAlgo naive = new NaiveAlgo();
+        KMPAlgo kmp = new KMPAlgo();
+        System.out.println("----- Tests d'efficacité de la recherche incrémentale : -----\n");
+        System.out.println(" -- Texte avec alphabet entier aléatoire, motif \"abf\", 1000 frappes\n");
+        int size = 500000;
+        String pattern = "abf";
+        for (int i = 1; i <= 6; i++) {
+            ArrayList<Character> texte = naive.generateText(size);
+            init(texte, pattern);
+            System.out.println("Taille du texte : " + size);
+
+            cpt = 0;
+            t1 = System.nanoTime();
+            for (int k = 0; k < 1000; k++) {
+                insert(size / 2 + k, "b");
+            }
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Temps incrémental (1000 frappes) : " + diffT + " ns");
+            System.out.println("Nombre d'opérations (cpt) : " + cpt);
+
+            kmp.cpt = 0;
+            t1 = System.nanoTime();
+            for (int k = 0; k < 20; k++) {
+                texte.add(size / 2, 'b');
+                kmp.kmpAlgo(texte, pattern);
+            }
+            t2 = System.nanoTime();
+            diffT = (t2 - t1) * 50;
+            System.out.println("Temps recherche complète (1000 frappes, extrapolé) : " + diffT + " ns");
+            System.out.println("Nombre d'opérations KMP (cpt, extrapolé) : " + kmp.cpt * 50);
+            System.out.println();
+            size = size * 2;
+        }
+        System.out.println("--------------------------------------------------");
+    }
+}
@@ -1,9 +1,17 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 
 class KMPAlgo {
 
     long cpt;
 
+    /**
+     * Maximum number of entries of a dense automaton table. Above it, the
+     * automaton is stored in compressed form (only the non-zero transitions,
+     * packed into a row-displacement table).
+     */
+    static final int DENSE_TABLE_LIMIT = 1 << 16;
+
     /**
      * Main method that launches all tests.
      * It runs both correctness tests and performance tests.
@@ -11,6 +19,8 @@ class KMPAlgo {
     void principal() {
         testKmpAlgo();
         testKmpAlgoEfficiency();
+        testKmpAutomatonAlgo();
+        testKmpAutomatonAlgoEfficiency();
     }
 
     /**
@@ -42,6 +52,22 @@ class KMPAlgo {
      * @return a list of indices where the pattern occurs in the text
      */
     ArrayList<Integer> kmpAlgo(ArrayList<Character> text, String pattern) {
+        return kmpAlgo(text, pattern, new SearchBudget());
+    }
+
+    /**
+     * Applies the KMP algorithm with an operation budget, a deadline and a
+     * cancellation token, charged m units for the prefix table and one unit
+     * per operation of the search.
+     *
+     * @param text    the text in which the pattern is searched
+     * @param pattern the pattern to search for
+     * @param budget  the budget of the search; its status tells whether the
+     *                search was stopped
+     * @return the indices of the occurrences found before the search ended or
+     *         was stopped
+     */
+    ArrayList<Integer> kmpAlgo(ArrayList<Character> text, String pattern, SearchBudget budget) {
 
         ArrayList<Integer> result = new ArrayList<>();
 
@@ -53,27 +79,38 @@ class KMPAlgo {
         }
 
         int[] pi = buildPrefixTable(pattern);
+        if (budget.exceeded(m)) {
+            return result;
+        }
 
         int i = 0; // index for text
         int j = 0; // index for pattern
 
         while (i < n) {
-            cpt++;
-            if (text.get(i) == pattern.charAt(j)) {
-                i++;
-                j++;
+            // search BATCH steps without calling the budget, then charge them
+            int work = 0;
+            while (i < n && work < SearchBudget.BATCH) {
+                work++;
+                if (text.get(i) == pattern.charAt(j)) {
+                    i++;
+                    j++;
 
-                if (j == m) {
-                    result.add(i - j + 1); // store the index of the occurrence
-                    j = pi[j - 1];
-                }
-            } else {
-                if (j > 0) {
-                    j = pi[j - 1];
+                    if (j == m) {
+                        result.add(i - j + 1); // store the index of the occurrence
+                        j = pi[j - 1];
+                    }
                 } else {
-                    i++;
+                    if (j > 0) {
+                        j = pi[j - 1];
+                    } else {
+                        i++;
+                    }
                 }
             }
+            cpt += work;
+            if (budget.exceeded(work)) {
+                return result;
+            }
         }
 
         return result;
@@ -115,6 +152,254 @@ class KMPAlgo {
         return pi;
     }
 
+    /**
+     * Builds the alphabet map of the pattern: each character of the pattern
+     * gets a column from 1 to sigma, every other character maps to column 0.
+     * The map is indexed by character code up to the largest character of the
+     * pattern, characters above it are not in the pattern.
+     *
+     * @param pattern the pattern
+     * @return the column of each character code
+     */
+    int[] buildAlphabetMap(String pattern) {
+        int max = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            max = Math.max(max, pattern.charAt(i));
+        }
+        int[] colOf = new int[max + 1];
+        int sigma = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            if (colOf[pattern.charAt(i)] == 0) {
+                sigma++;
+                colOf[pattern.charAt(i)] = sigma;
+            }
+        }
+        return colOf;
+    }
+
+    /**
+     * Builds the dense transition table of the KMP automaton.
+     * The table is flattened: the transition from state q on column c is
+     * delta[q * (sigma + 1) + c]. Row q is the row of the fallback state
+     * pi[q - 1] where the transition on pattern[q] is replaced by q + 1, so no
+     * fallback is left to follow during the search.
+     *
+     * @param pattern the pattern
+     * @param colOf   the alphabet map of the pattern
+     * @param sigma   the number of distinct characters of the pattern
+     * @return the flattened table of (m + 1) * (sigma + 1) states
+     */
+    int[] buildAutomaton(String pattern, int[] colOf, int sigma) {
+        int m = pattern.length();
+        int width = sigma + 1;
+        int[] pi = buildPrefixTable(pattern);
+        int[] delta = new int[(m + 1) * width];
+
+        delta[colOf[pattern.charAt(0)]] = 1;
+        for (int q = 1; q <= m; q++) {
+            System.arraycopy(delta, pi[q - 1] * width, delta, q * width, width);
+            if (q < m) {
+                delta[q * width + colOf[pattern.charAt(q)]] = q + 1;
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Builds the compressed KMP automaton, used when the dense table would be
+     * too large. For each state only the non-zero transitions are stored, as
+     * parallel arrays of characters and target states; there are at most 2m
+     * of them over the whole automaton.
+     *
+     * @param pattern     the pattern
+     * @param edgeChars   receives, for each state, the characters with a
+     *                    non-zero transition
+     * @param edgeTargets receives, for each state, the matching target states
+     */
+    void buildSparseAutomaton(String pattern, char[][] edgeChars, int[][] edgeTargets) {
+        int m = pattern.length();
+        int[] pi = buildPrefixTable(pattern);
+
+        edgeChars[0] = new char[] { pattern.charAt(0) };
+        edgeTargets[0] = new int[] { 1 };
+        for (int q = 1; q <= m; q++) {
+            char[] parentChars = edgeChars[pi[q - 1]];
+            int[] parentTargets = edgeTargets[pi[q - 1]];
+            if (q == m) {
+                edgeChars[q] = parentChars;
+                edgeTargets[q] = parentTargets;
+            } else {
+                char c = pattern.charAt(q);
+                int k = 0;
+                while (k < parentChars.length && parentChars[k] != c) {
+                    k++;
+                }
+                int size = k < parentChars.length ? parentChars.length : parentChars.length + 1;
+                edgeChars[q] = Arrays.copyOf(parentChars, size);
+                edgeTargets[q] = Arrays.copyOf(parentTargets, size);
+                edgeChars[q][k] = c;
+                edgeTargets[q][k] = q + 1;
+            }
+        }
+    }
+
+    /**
+     * Packs the compressed automaton into a row-displacement table, so that a
+     * transition costs the same for every state and character. The rows of
+     * the states are overlapped at offsets base[q] chosen first-fit, and each
+     * slot records its owner state: the transition from state q on column c
+     * is target[base[q] + c] when check[base[q] + c] == q, 0 otherwise.
+     *
+     * @param colOf       the alphabet map of the pattern
+     * @param sigma       the number of distinct characters of the pattern
+     * @param edgeChars   the characters with a non-zero transition, per state
+     * @param edgeTargets the matching target states, per state
+     * @return the arrays {base, check, target}
+     */
+    int[][] packAutomaton(int[] colOf, int sigma, char[][] edgeChars, int[][] edgeTargets) {
+        int states = edgeChars.length;
+        int[] base = new int[states];
+        int[] check = new int[Math.max(16, 2 * states)];
+        int[] target = new int[check.length];
+        Arrays.fill(check, -1);
+        int firstFree = 0;
+        int maxBase = 0;
+        for (int q = 0; q < states; q++) {
+            char[] chars = edgeChars[q];
+            int minCol = Integer.MAX_VALUE;
+            for (char c : chars) {
+                minCol = Math.min(minCol, colOf[c]);
+            }
+            int b = Math.max(0, firstFree - minCol);
+            boolean fits = false;
+            while (!fits) {
+                fits = true;
+                for (int k = 0; k < chars.length && fits; k++) {
+                    int slot = b + colOf[chars[k]];
+                    fits = slot >= check.length || check[slot] == -1;
+                }
+                if (!fits) {
+                    b++;
+                }
+            }
+            if (b + sigma + 1 > check.length) {
+                int old = check.length;
+                int size = Math.max(2 * old, b + sigma + 1);
+                check = Arrays.copyOf(check, size);
+                target = Arrays.copyOf(target, size);
+                Arrays.fill(check, old, size, -1);
+            }
+            for (int k = 0; k < chars.length; k++) {
+                check[b + colOf[chars[k]]] = q;
+                target[b + colOf[chars[k]]] = edgeTargets[q][k];
+            }
+            base[q] = b;
+            maxBase = Math.max(maxBase, b);
+            while (firstFree < check.length && check[firstFree] != -1) {
+                firstFree++;
+            }
+        }
+        int size = maxBase + sigma + 1;
+        return new int[][] { base, Arrays.copyOf(check, size), Arrays.copyOf(target, size) };
+    }
+
+    /**
+     * Applies the KMP algorithm in automaton mode: each text character costs
+     * exactly one transition, with no fallback loop, so cpt is exactly n.
+     * The automaton is dense when (m + 1) * (sigma + 1) does not exceed
+     * {@link #DENSE_TABLE_LIMIT}, packed into a row-displacement table
+     * otherwise. In both cases a transition is one lookup in the alphabet map
+     * and one in the table (plus the owner check of the packed table),
+     * whatever the state and the character.
+     *
+     * @param text    the text in which the pattern is searched
+     * @param pattern the pattern to search for
+     * @return a list of indices where the pattern occurs in the text
+     */
+    ArrayList<Integer> kmpAutomatonAlgo(ArrayList<Character> text, String pattern) {
+        return kmpAutomatonAlgo(text, pattern, new SearchBudget());
+    }
+
+    /**
+     * Applies the KMP algorithm in automaton mode with an operation budget, a
+     * deadline and a cancellation token, charged for the size of the table
+     * built and one unit per text character.
+     *
+     * @param text    the text in which the pattern is searched
+     * @param pattern the pattern to search for
+     * @param budget  the budget of the search; its status tells whether the
+     *                search was stopped
+     * @return the indices of the occurrences found before the search ended or
+     *         was stopped
+     */
+    ArrayList<Integer> kmpAutomatonAlgo(ArrayList<Character> text, String pattern, SearchBudget budget) {
+
+        ArrayList<Integer> result = new ArrayList<>();
+
+        int n = text.size();
+        int m = pattern.length();
+
+        if (m == 0 || n == 0 || m > n) {
+            return result;
+        }
+
+        int[] colOf = buildAlphabetMap(pattern);
+        int sigma = 0;
+        for (int col : colOf) {
+            sigma = Math.max(sigma, col);
+        }
+
+        int q = 0; // current state
+        if ((long) (m + 1) * (sigma + 1) <= DENSE_TABLE_LIMIT) {
+            int width = sigma + 1;
+            int[] delta = buildAutomaton(pattern, colOf, sigma);
+            if (budget.exceeded(delta.length)) {
+                return result;
+            }
+            for (int i = 0; i < n; i++) {
+                cpt++;
+                char c = text.get(i);
+                q = delta[q * width + (c < colOf.length ? colOf[c] : 0)];
+                if (q == m) {
+                    result.add(i - m + 2); // store the index of the occurrence
+                }
+                // charge the budget once every BATCH characters
+                if ((i & (SearchBudget.BATCH - 1)) == SearchBudget.BATCH - 1
+                        && budget.exceeded(SearchBudget.BATCH)) {
+                    return result;
+                }
+            }
+        } else {
+            char[][] edgeChars = new char[m + 1][];
+            int[][] edgeTargets = new int[m + 1][];
+            buildSparseAutomaton(pattern, edgeChars, edgeTargets);
+            int[][] packed = packAutomaton(colOf, sigma, edgeChars, edgeTargets);
+            int[] base = packed[0];
+            int[] check = packed[1];
+            int[] target = packed[2];
+            if (budget.exceeded(target.length + m)) {
+                return result;
+            }
+            for (int i = 0; i < n; i++) {
+                cpt++;
+                char c = text.get(i);
+                int col = c < colOf.length ? colOf[c] : 0;
+                int slot = base[q] + col;
+                q = col != 0 && check[slot] == q ? target[slot] : 0;
+                if (q == m) {
+                    result.add(i - m + 2);
+                }
+                // charge the budget once every BATCH characters
+                if ((i & (SearchBudget.BATCH - 1)) == SearchBudget.BATCH - 1
+                        && budget.exceeded(SearchBudget.BATCH)) {
+                    return result;
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Tests the correctness of the KMP algorithm
      * using randomly generated texts and simple patterns.
@@ -168,15 +453,19 @@ class KMPAlgo {
             text.add('b');
 
             cpt = 0;
+            MemoryProfile profil = new MemoryProfile();
+            profil.start();
             t1 = System.nanoTime();
-            kmpAlgo(text, pattern);
+            ArrayList<Integer> result = kmpAlgo(text, pattern);
             t2 = System.nanoTime();
+            profil.stop();
             diffT = t2 - t1;
 
             System.out.println("Taille du texte : " + n);
             System.out.println("Temps d'exécution : " + diffT + " ns");
             System.out.println("Nombre d'opérations (cpt) : " + cpt);
             System.out.println("Nombre d'opérations/n (cpt/n) : " + (cpt / (double) n));
+            profil.print(text, result);
             System.out.println();
 
             n *= 2;
@@ -189,13 +478,17 @@ class KMPAlgo {
 
             System.out.println("Taille du texte : " + n);
             cpt = 0;
+            MemoryProfile profil = new MemoryProfile();
+            profil.start();
             t1 = System.nanoTime();
-            kmpAlgo(texte, pattern);
+            ArrayList<Integer> result = kmpAlgo(texte, pattern);
             t2 = System.nanoTime();
+            profil.stop();
             diffT = t2 - t1;
             System.out.println("Temps d'exécution : " + diffT + " ns");
             System.out.println("Nombre d'opérations (cpt) : " + cpt);
             System.out.println("Nombre d'opérations/n (cpt/n) : " + (cpt / (double) n));
+            profil.print(texte, result);
             System.out.println();
 
             n = n * 2;
@@ -203,6 +496,206 @@ class KMPAlgo {
         System.out.println("--------------------------------------------------");
     }
 
+    /**
+     * Tests the automaton mode against the prefix-table loop, on small and
+     * large alphabets (the latter use the compressed automaton).
+     */
+    void testKmpAutomatonAlgo() {
+        System.out.println("Test KMPAlgo (automate)");
+
+        testCasKmpAutomatonAlgo(generateText(10000), "ta");
+        testCasKmpAutomatonAlgo(generateText(10000), "abab");
+
+        ArrayList<Character> text = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            text.add((char) ('a' + (int) (Math.random() * 2)));
+        }
+        testCasKmpAutomatonAlgo(text, "abaababaab");
+
+        // Large alphabet: (m + 1) * (sigma + 1) is above the dense limit
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            sb.append((char) (0x4E00 + i));
+        }
+        String big = sb.toString();
+        ArrayList<Character> text2 = new ArrayList<>();
+        for (int k = 0; k < 20; k++) {
+            for (int i = 0; i < 300; i++) {
+                text2.add(big.charAt((int) (Math.random() * 4) == 0 ? (int) (Math.random() * 300) : i));
+            }
+        }
+        testCasKmpAutomatonAlgo(text2, big);
+
+        // Large alphabet with overlapping occurrences: every state has fallback edges
+        ArrayList<Character> text3 = new ArrayList<>();
+        for (int k = 0; k < 20; k++) {
+            for (int i = 0; i < 300; i++) {
+                text3.add(big.charAt(i));
+            }
+            if (k % 5 == 4) {
+                text3.add(big.charAt(k));
+            }
+        }
+        testCasKmpAutomatonAlgo(text3, big + big.substring(0, 150));
+        testCasKmpAutomatonAlgo(text3, big.substring(150) + big.substring(0, 150));
+    }
+
+    /**
+     * Runs a single test case of the automaton mode and compares its result
+     * with the prefix-table loop. The counter must be exactly the text size.
+     *
+     * @param text    the text to analyze
+     * @param pattern the pattern to search for
+     */
+    void testCasKmpAutomatonAlgo(ArrayList<Character> text, String pattern) {
+        ArrayList<Integer> resultAttendu = kmpAlgo(text, pattern);
+        cpt = 0;
+        ArrayList<Integer> result = kmpAutomatonAlgo(text, pattern);
+        if (result.equals(resultAttendu) && cpt == text.size()) {
+            System.out.println("Test passed for pattern of length " + pattern.length() + ".");
+        } else {
+            System.out.println("Test failed for pattern of length " + pattern.length() + ". Expected: "
+                    + resultAttendu + ", Got: " + result + ", cpt = " + cpt);
+        }
+    }
+
+    /**
+     * Compares the automaton mode with the prefix-table loop: execution time,
+     * operations, worst cost of a single text character and memory of the
+     * tables, with the dense automaton on a small alphabet then with the
+     * compressed automaton on a large one.
+     */
+    void testKmpAutomatonAlgoEfficiency() {
+        long t1, t2, diffT;
+        String pattern = "aaaaaaaaab";
+
+        System.out.println("----- Tests d'efficacité de l'automate KMP : -----\n");
+        System.out.println(" -- Texte \"aaaaaaaaa\" répété puis \"c\" et motif \"aaaaaaaaab\"\n");
+
+        int[] colOf = buildAlphabetMap(pattern);
+        int[] pi = buildPrefixTable(pattern);
+        int[] delta = buildAutomaton(pattern, colOf, 2);
+        System.out.println("Mémoire table des préfixes : " + (4 * pi.length) + " octets");
+        System.out.println("Mémoire automate dense : " + (4 * (delta.length + colOf.length)) + " octets");
+        System.out.println();
+
+        int n = 500000;
+        for (int i = 1; i <= 6; i++) {
+            ArrayList<Character> text = new ArrayList<>();
+            for (int j = 0; j < n; j++) {
+                text.add(j % 10 == 9 ? 'c' : 'a');
+            }
+
+            System.out.println("Taille du texte : " + n);
+            cpt = 0;
+            t1 = System.nanoTime();
+            kmpAlgo(text, pattern);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Table des préfixes - temps : " + diffT + " ns, cpt/n : " + (cpt / (double) n));
+
+            cpt = 0;
+            t1 = System.nanoTime();
+            kmpAutomatonAlgo(text, pattern);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Automate - temps : " + diffT + " ns, cpt/n : " + (cpt / (double) n));
+            System.out.println("Pire coût d'un caractère : table des préfixes " + maxSteps(text, pattern)
+                    + " étapes, automate 1 transition");
+            System.out.println();
+
+            n *= 2;
+        }
+
+        // Large alphabet: the automaton is packed in a row-displacement table
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            sb.append((char) (0x4E00 + i));
+        }
+        String big = sb.toString();
+        String bigPattern = big + big.substring(0, 150);
+        colOf = buildAlphabetMap(bigPattern);
+        char[][] edgeChars = new char[bigPattern.length() + 1][];
+        int[][] edgeTargets = new int[bigPattern.length() + 1][];
+        buildSparseAutomaton(bigPattern, edgeChars, edgeTargets);
+        int[][] packed = packAutomaton(colOf, 300, edgeChars, edgeTargets);
+        System.out.println(" -- Alphabet de 300 caractères, motif de " + bigPattern.length()
+                + " caractères (automate compressé)\n");
+        System.out.println("Mémoire table des préfixes : " + (4 * bigPattern.length()) + " octets");
+        System.out.println("Mémoire automate compressé : "
+                + (4 * (packed[0].length + packed[1].length + packed[2].length + colOf.length)) + " octets");
+        System.out.println("Mémoire automate dense équivalent : " + (4L * (bigPattern.length() + 1) * 301)
+                + " octets");
+        System.out.println();
+
+        n = 500000;
+        for (int i = 1; i <= 6; i++) {
+            ArrayList<Character> text = new ArrayList<>();
+            for (int j = 0; j < n; j++) {
+                // the alphabet repeated, with a wrong character every 500
+                text.add(big.charAt(j % 500 == 499 ? (j + 1) % 300 : j % 300));
+            }
+
+            System.out.println("Taille du texte : " + n);
+            cpt = 0;
+            t1 = System.nanoTime();
+            kmpAlgo(text, bigPattern);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Table des préfixes - temps : " + diffT + " ns, cpt/n : " + (cpt / (double) n));
+
+            cpt = 0;
+            t1 = System.nanoTime();
+            kmpAutomatonAlgo(text, bigPattern);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Automate compressé - temps : " + diffT + " ns, cpt/n : " + (cpt / (double) n));
+            System.out.println("Pire coût d'un caractère : table des préfixes " + maxSteps(text, bigPattern)
+                    + " étapes, automate 1 transition");
+            System.out.println();
+
+            n *= 2;
+        }
+        System.out.println("--------------------------------------------------");
+    }
+
+    /**
+     * Replays the prefix-table loop and returns the largest number of steps
+     * spent on a single text character (one comparison, plus one per
+     * fallback through pi).
+     *
+     * @param text    the text in which the pattern is searched
+     * @param pattern the pattern to search for
+     * @return the worst number of steps for one text character
+     */
+    int maxSteps(ArrayList<Character> text, String pattern) {
+        int[] pi = buildPrefixTable(pattern);
+        int m = pattern.length();
+        int max = 0;
+        int steps = 0;
+        int i = 0;
+        int j = 0;
+        while (i < text.size()) {
+            steps++;
+            if (text.get(i) == pattern.charAt(j)) {
+                i++;
+                j++;
+                if (j == m) {
+                    j = pi[j - 1];
+                }
+                max = Math.max(max, steps);
+                steps = 0;
+            } else if (j > 0) {
+                j = pi[j - 1];
+            } else {
+                i++;
+                max = Math.max(max, steps);
+                steps = 0;
+            }
+        }
+        return max;
+    }
+
 }
 
 // commentaire Bien que le nombre de comparaisons puisse dépasser la taille du
@@ -0,0 +1,555 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Versions of the naive, KMP, Rabin-Karp and Boyer-Moore algorithms working on
+ * an {@link OffHeapText} with long positions, for texts longer than 2^31-1
+ * characters.
+ * The results are 1-based long positions, as in the ArrayList versions.
+ */
+class LongTextAlgo {
+
+    /**
+     * Global counter to measure the algorithms' performance.
+     */
+    long cpt;
+
+    /**
+     * Main method to run tests of the long-indexed algorithms.
+     */
+    void principal() {
+        testLongTextAlgo();
+        testLongTextAlgoEfficiency();
+    }
+
+    /**
+     * Naive algorithm on an off-heap text.
+     *
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @return the 1-based starting positions of the occurrences.
+     */
+    ArrayList<Long> naiveAlgo(OffHeapText text, String pattern) {
+        ArrayList<Long> tab = new ArrayList<>();
+        int m = pattern.length();
+        if (m == 0) {
+            return tab;
+        }
+        for (long i = 0; i <= text.size() - m; i++) {
+            cpt++;
+            if (text.get(i) == pattern.charAt(0)) {
+                int j = 1;
+                while (j < m && text.get(i + j) == pattern.charAt(j)) {
+                    j++;
+                }
+                if (j == m) {
+                    tab.add(i + 1); // 1st occurrence at index 1
+                }
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * Naive algorithm on an off-heap text with an operation budget, a
+     * deadline and a cancellation token, charged one unit per alignment and
+     * per character compared.
+     *
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @param budget  the budget of the search; its status tells whether the
+     *                search was stopped.
+     * @return the 1-based starting positions of the occurrences found before
+     *         the search ended or was stopped.
+     */
+    ArrayList<Long> naiveAlgo(OffHeapText text, String pattern, SearchBudget budget) {
+        ArrayList<Long> tab = new ArrayList<>();
+        int m = pattern.length();
+        if (m == 0) {
+            return tab;
+        }
+        long last = text.size() - m;
+        long i = 0;
+        while (i <= last) {
+            // search BATCH units without calling the budget, then charge them
+            int work = 0;
+            for (; i <= last && work < SearchBudget.BATCH; i++) {
+                cpt++;
+                work++;
+                if (text.get(i) == pattern.charAt(0)) {
+                    int j = 1;
+                    while (j < m && text.get(i + j) == pattern.charAt(j)) {
+                        j++;
+                    }
+                    if (j == m) {
+                        tab.add(i + 1); // 1st occurrence at index 1
+                    }
+                    work += j;
+                }
+            }
+            if (budget.exceeded(work)) {
+                return tab;
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * KMP algorithm on an off-heap text.
+     *
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @return the 1-based starting positions of the occurrences.
+     */
+    ArrayList<Long> kmpAlgo(OffHeapText text, String pattern) {
+        return kmpAlgo(text, pattern, new SearchBudget());
+    }
+
+    /**
+     * KMP algorithm on an off-heap text with an operation budget, a deadline
+     * and a cancellation token, charged m units for the prefix table and one
+     * unit per operation of the search.
+     *
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @param budget  the budget of the search; its status tells whether the
+     *                search was stopped.
+     * @return the 1-based starting positions of the occurrences found before
+     *         the search ended or was stopped.
+     */
+    ArrayList<Long> kmpAlgo(OffHeapText text, String pattern, SearchBudget budget) {
+        ArrayList<Long> result = new ArrayList<>();
+        long n = text.size();
+        int m = pattern.length();
+        if (m == 0 || n == 0 || m > n) {
+            return result;
+        }
+
+        int[] pi = new KMPAlgo().buildPrefixTable(pattern);
+        if (budget.exceeded(m)) {
+            return result;
+        }
+
+        long i = 0; // index for text
+        int j = 0; // index for pattern
+
+        while (i < n) {
+            // search BATCH steps without calling the budget, then charge them
+            int work = 0;
+            while (i < n && work < SearchBudget.BATCH) {
+                work++;
+                if (text.get(i) == pattern.charAt(j)) {
+                    i++;
+                    j++;
+                    if (j == m) {
+                        result.add(i - j + 1);
+                        j = pi[j - 1];
+                    }
+                } else {
+                    if (j > 0) {
+                        j = pi[j - 1];
+                    } else {
+                        i++;
+                    }
+                }
+            }
+            cpt += work;
+            if (budget.exceeded(work)) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rabin-Karp algorithm on an off-heap text.
+     *
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @return the 1-based starting positions of the occurrences.
+     */
+    ArrayList<Long> rabinKarpAlgo(OffHeapText text, String pattern) {
+        ArrayList<Long> result = new ArrayList<>();
+        long n = text.size();
+        int m = pattern.length();
+        if (m == 0 || n < m)
+            return result;
+
+        long base = 256L;
+        long mod = 1000000007L;
+
+        long patternHash = 0L;
+        long textHash = 0L;
+        long h = 1L;
+
+        for (int i = 0; i < m - 1; i++) {
+            h = (h * base) % mod;
+        }
+
+        for (int i = 0; i < m; i++) {
+            patternHash = (base * patternHash + pattern.charAt(i)) % mod;
+            textHash = (base * textHash + text.get(i)) % mod;
+            cpt++;
+        }
+
+        for (long i = 0; i <= n - m; i++) {
+            cpt++;
+            if (patternHash == textHash) {
+                boolean match = true;
+                for (int j = 0; j < m && match; j++) {
+                    cpt++;
+                    if (text.get(i + j) != pattern.charAt(j)) {
+                        match = false;
+                    }
+                }
+                if (match) {
+                    result.add(i + 1);
+                }
+            }
+            if (i < n - m) {
+                textHash = (base * (textHash - text.get(i) * h) + text.get(i + m)) % mod;
+                if (textHash < 0)
+                    textHash += mod;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rabin-Karp algorithm on an off-heap text with an operation budget, a
+     * deadline and a cancellation token, charged m units for the initial
+     * hashes and one unit per operation of the search phase.
+     *
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @param budget  the budget of the search; its status tells whether the
+     *                search was stopped.
+     * @return the 1-based starting positions of the occurrences found before
+     *         the search ended or was stopped.
+     */
+    ArrayList<Long> rabinKarpAlgo(OffHeapText text, String pattern, SearchBudget budget) {
+        ArrayList<Long> result = new ArrayList<>();
+        long n = text.size();
+        int m = pattern.length();
+        if (m == 0 || n < m)
+            return result;
+
+        long base = 256L;
+        long mod = 1000000007L;
+
+        long patternHash = 0L;
+        long textHash = 0L;
+        long h = 1L;
+
+        for (int i = 0; i < m - 1; i++) {
+            h = (h * base) % mod;
+        }
+
+        for (int i = 0; i < m; i++) {
+            patternHash = (base * patternHash + pattern.charAt(i)) % mod;
+            textHash = (base * textHash + text.get(i)) % mod;
+            cpt++;
+        }
+        if (budget.exceeded(m)) {
+            return result;
+        }
+
+        int work = 0; // units of work not yet charged to the budget
+        for (long i = 0; i <= n - m; i++) {
+            cpt++;
+            if (++work >= SearchBudget.BATCH) {
+                if (budget.exceeded(work)) {
+                    return result;
+                }
+                work = 0;
+            }
+            if (patternHash == textHash) {
+                boolean match = true;
+                work += m;
+                for (int j = 0; j < m && match; j++) {
+                    cpt++;
+                    if (text.get(i + j) != pattern.charAt(j)) {
+                        match = false;
+                    }
+                }
+                if (match) {
+                    result.add(i + 1);
+                }
+            }
+            if (i < n - m) {
+                textHash = (base * (textHash - text.get(i) * h) + text.get(i + m)) % mod;
+                if (textHash < 0)
+                    textHash += mod;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Boyer-Moore algorithm on an off-heap text, with the same bad character
+     * and good suffix rules as {@link BoyerMooreAlgo}.
+     *
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @return the 1-based starting positions of the occurrences.
+     */
+    ArrayList<Long> boyerMooreAlgo(OffHeapText text, String pattern) {
+        ArrayList<Long> result = new ArrayList<>();
+        int m = pattern.length();
+        if (m == 0) {
+            return result;
+        }
+        BoyerMooreAlgo bm = new BoyerMooreAlgo();
+        long indPattern = 0;
+        while (indPattern + m - 1 < text.size()) {
+            int j = m - 1;
+            while (j >= 0 && text.get(indPattern + j) == pattern.charAt(j)) {
+                j--;
+            }
+            cpt++;
+            if (j < 0) {
+                result.add(indPattern + 1);
+                indPattern += 1;
+            } else {
+                int d1 = bm.decalage(pattern, text.get(indPattern + j), j);
+                int d2 = bm.calculDecalageBonSuffixe(pattern, j);
+                indPattern += Math.max(d1, d2);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Boyer-Moore algorithm on an off-heap text with an operation budget, a
+     * deadline and a cancellation token, charged as in
+     * {@link BoyerMooreAlgo#boyerMooreAlgo(ArrayList, String, SearchBudget)}.
+     *
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @param budget  the budget of the search; its status tells whether the
+     *                search was stopped.
+     * @return the 1-based starting positions of the occurrences found before
+     *         the search ended or was stopped.
+     */
+    ArrayList<Long> boyerMooreAlgo(OffHeapText text, String pattern, SearchBudget budget) {
+        ArrayList<Long> result = new ArrayList<>();
+        int m = pattern.length();
+        if (m == 0) {
+            return result;
+        }
+        BoyerMooreAlgo bm = new BoyerMooreAlgo();
+        long indPattern = 0;
+        int work = 0; // units of work not yet charged to the budget
+        while (indPattern + m - 1 < text.size()) {
+            int j = m - 1;
+            while (j >= 0 && text.get(indPattern + j) == pattern.charAt(j)) {
+                j--;
+            }
+            cpt++;
+            // characters compared, then scanned by the bad character rule
+            work += m + 1;
+            if (work >= SearchBudget.BATCH) {
+                if (budget.exceeded(work)) {
+                    return result;
+                }
+                work = 0;
+            }
+            if (j < 0) {
+                result.add(indPattern + 1);
+                indPattern += 1;
+            } else {
+                int d1 = bm.decalage(pattern, text.get(indPattern + j), j);
+                int d2 = bm.calculDecalageBonSuffixe(pattern, j, budget);
+                if (budget.status != SearchBudget.Status.COMPLETED) {
+                    return result;
+                }
+                indPattern += Math.max(d1, d2);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tests the four algorithms against their ArrayList versions.
+     */
+    void testLongTextAlgo() {
+        System.out.println("Test LongTextAlgo");
+        NaiveAlgo naive = new NaiveAlgo();
+        testCasLongTextAlgo(naive.generateText(100000), "ab");
+        testCasLongTextAlgo(naive.generateSequenceText(100000), "aaaab");
+        testCasLongTextAlgo(naive.generateLettreText(10000, 'a'), "aaa");
+        ArrayList<Character> texte = new ArrayList<>();
+        for (char c : "Il a regardé dedans, est entré dedans, puis a caché la clé dedans.".toCharArray())
+            texte.add(c);
+        testCasLongTextAlgo(texte, "dedans");
+
+        // Tiny buffers: the occurrences straddle buffer boundaries
+        testCasLongTextAlgo(naive.generateText(10000), "ab", 1);
+        testCasLongTextAlgo(naive.generateSequenceText(10000), "aaaab", 3);
+        testCasLongTextAlgo(naive.generateLettreText(1000, 'a'), "aaa", 1);
+        testCasLongTextAlgo(texte, "dedans", 3);
+        ArrayList<Character> texte2 = new ArrayList<>(texte);
+        texte2.add('\u20AC'); // 2 bytes per character
+        testCasLongTextAlgo(texte2, "dedans", 1);
+        testCasLongTextAlgo(texte2, "dedans", 3);
+        ArrayList<Character> texte3 = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            texte3.add(i % 7 == 0 ? '\u20AC' : (char) ('a' + (int) (Math.random() * 3)));
+        }
+        testCasLongTextAlgo(texte3, "ab\u20AC", 2);
+        testCasLongTextAlgo(texte3, "\u20ACa", 4);
+
+        testLongPositions();
+        testLargerThanHeap();
+    }
+
+    /**
+     * Builds a text twice as large as the maximum heap and writes and reads
+     * its last characters: without a mapped file, direct buffers would be
+     * refused beyond -XX:MaxDirectMemorySize.
+     */
+    void testLargerThanHeap() {
+        long capacity = 2 * Runtime.getRuntime().maxMemory();
+        try {
+            OffHeapText texte = new OffHeapText(capacity, 1);
+            texte.set(capacity - 1, 'z');
+            texte.set(capacity / 2, 'y');
+            if (texte.get(capacity - 1) == 'z' && texte.get(capacity / 2) == 'y' && texte.get(capacity - 2) == 0) {
+                System.out.println("Test passed for a text of " + capacity + " characters.");
+            } else {
+                System.out.println("Test failed for a text of " + capacity + " characters.");
+            }
+        } catch (UncheckedIOException e) {
+            System.out.println("Test failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compares the four long-indexed algorithms with the naive ArrayList
+     * algorithm on one text.
+     *
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     */
+    void testCasLongTextAlgo(ArrayList<Character> text, String pattern) {
+        testCasLongTextAlgo(text, pattern, OffHeapText.CHUNK_SHIFT);
+    }
+
+    /**
+     * Compares the four long-indexed algorithms with the naive ArrayList
+     * algorithm on one text stored in buffers of 2^chunkShift bytes, and checks
+     * that with small buffers some occurrences straddle two buffers.
+     *
+     * @param text       the text in which to search for the pattern.
+     * @param pattern    the pattern to search for.
+     * @param chunkShift the log2 of the number of bytes per buffer.
+     */
+    void testCasLongTextAlgo(ArrayList<Character> text, String pattern, int chunkShift) {
+        ArrayList<Long> resultAttendu = new ArrayList<>();
+        for (int p : new NaiveAlgo().naiveAlgo(text, pattern)) {
+            resultAttendu.add((long) p);
+        }
+        OffHeapText offHeap = OffHeapText.fromArrayList(text, chunkShift);
+        int straddling = 0;
+        for (long p : resultAttendu) {
+            long first = (p - 1) * offHeap.width;
+            long last = (p - 1 + pattern.length()) * offHeap.width - 1;
+            if (first >>> chunkShift != last >>> chunkShift) {
+                straddling++;
+            }
+        }
+        boolean equals = resultAttendu.equals(naiveAlgo(offHeap, pattern))
+                && resultAttendu.equals(kmpAlgo(offHeap, pattern))
+                && resultAttendu.equals(rabinKarpAlgo(offHeap, pattern))
+                && resultAttendu.equals(boyerMooreAlgo(offHeap, pattern))
+                && (chunkShift == OffHeapText.CHUNK_SHIFT || straddling > 0);
+        if (equals) {
+            System.out.println("Test passed for pattern \"" + pattern + "\" (largeur " + offHeap.width
+                    + ", tampons de " + offHeap.chunkBytes + " octets, " + straddling + " à cheval).");
+        } else {
+            System.out.println("Test failed for pattern \"" + pattern + "\" (largeur " + offHeap.width
+                    + ", tampons de " + offHeap.chunkBytes + " octets, " + straddling + " à cheval). Expected: "
+                    + resultAttendu);
+        }
+    }
+
+    /**
+     * Reads characters around the positions 2^31 (int overflow) and 2^32 of a
+     * sparse mapped file, across the boundaries of its 2^30-byte buffers. Only
+     * the written pages take disk space.
+     */
+    void testLongPositions() {
+        String pattern = "dedans";
+        long[] positions = { (1L << 31) - 3, (1L << 32) - 2 };
+        Path file = null;
+        try {
+            file = Files.createTempFile("sae-long", ".txt");
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength((1L << 32) + 16);
+                for (long p : positions) {
+                    raf.seek(p);
+                    raf.write(pattern.getBytes("ISO-8859-1"));
+                }
+            }
+            OffHeapText texte = OffHeapText.fromFile(file);
+            boolean ok = texte.size() == (1L << 32) + 16 && texte.chunks.length == 5;
+            for (long p : positions) {
+                for (int j = 0; j < pattern.length(); j++) {
+                    ok = ok && texte.get(p + j) == pattern.charAt(j);
+                }
+                ok = ok && texte.get(p - 1) == 0 && texte.get(p + pattern.length()) == 0;
+            }
+            if (ok) {
+                System.out.println("Test passed for positions " + positions[0] + " and " + positions[1] + ".");
+            } else {
+                System.out.println("Test failed for positions " + positions[0] + " and " + positions[1] + ".");
+            }
+        } catch (IOException e) {
+            System.out.println("Test failed: " + e.getMessage());
+        } finally {
+            try {
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Measures the KMP algorithm on off-heap random texts of growing size,
+     * together with the heap used, which stays independent of the text size.
+     */
+    void testLongTextAlgoEfficiency() {
+        long t1, t2, diffT;
+        Runtime rt = Runtime.getRuntime();
+        System.out.println("----- Tests d'efficacité sur texte hors tas : -----\n");
+        System.out.println(" -- Texte avec alphabet entier aléatoire et motif \"abf\"\n");
+        long size = 500000;
+        String pattern = "abf";
+        for (int i = 1; i <= 6; i++) {
+            OffHeapText texte = new OffHeapText(size, 1);
+            for (long k = 0; k < size; k++) {
+                texte.add((char) ('a' + (int) (Math.random() * 26)));
+            }
+            System.out.println("Taille du texte : " + size);
+            cpt = 0;
+            t1 = System.nanoTime();
+            kmpAlgo(texte, pattern);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Temps d'exécution : " + diffT + " ns");
+            System.out.println("Nombre d'opérations (cpt) : " + cpt);
+            System.out.println("Nombre d'opérations/n (cpt/n) : " + (cpt / (double) size));
+            System.out.println("Tas utilisé : " + (rt.totalMemory() - rt.freeMemory()) + " octets");
+            System.out.println();
+            size = size * 2;
+        }
+        System.out.println("--------------------------------------------------");
+    }
+}
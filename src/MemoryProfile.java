@@ -0,0 +1,137 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+/**
+ * Memory profile of one run of an algorithm: bytes allocated by the running
+ * thread, number and duration of the garbage collections during the run, and
+ * estimated retained size of the text and of the result.
+ * The retained sizes assume a 64-bit JVM with compressed references (4-byte
+ * references, 12-byte object headers, 8-byte alignment) and count the boxed
+ * values outside the cache of Character.valueOf and Integer.valueOf.
+ */
+class MemoryProfile {
+
+    /**
+     * Allocated bytes, GC count and GC time at the start of the run.
+     */
+    long allocStart, gcCountStart, gcTimeStart;
+
+    /**
+     * Allocated bytes, GC count and GC time (ms) during the run.
+     */
+    long allocated, gcCount, gcTime;
+
+    /**
+     * Starts the measure, just before the run.
+     */
+    void start() {
+        gcCountStart = gcCount();
+        gcTimeStart = gcTime();
+        allocStart = threadAllocatedBytes();
+    }
+
+    /**
+     * Stops the measure, just after the run.
+     */
+    void stop() {
+        long end = threadAllocatedBytes();
+        allocated = allocStart < 0 ? -1 : end - allocStart;
+        gcCount = gcCount() - gcCountStart;
+        gcTime = gcTime() - gcTimeStart;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread.
+     *
+     * @return the allocated bytes, -1 if the JVM cannot measure them.
+     */
+    long threadAllocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getCurrentThreadAllocatedBytes();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of garbage collections since the JVM started.
+     *
+     * @return the sum of the counts of all collectors.
+     */
+    long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    /**
+     * Returns the time spent in garbage collections since the JVM started.
+     *
+     * @return the sum of the times of all collectors, in milliseconds.
+     */
+    long gcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * Estimates the retained size of a list of boxed values: the ArrayList
+     * object, its array of references, and the boxed objects that are not
+     * shared through the cache of valueOf.
+     *
+     * @param list the list.
+     * @return the estimated size in bytes.
+     */
+    long retainedSize(ArrayList<?> list) {
+        long size = 24 + align(16 + 4L * list.size());
+        for (Object o : list) {
+            if (o instanceof Character) {
+                size += (Character) o <= 127 ? 0 : 16;
+            } else if (o instanceof Integer) {
+                int v = (Integer) o;
+                size += v >= -128 && v <= 127 ? 0 : 16;
+            } else if (o instanceof Long) {
+                long v = (Long) o;
+                size += v >= -128 && v <= 127 ? 0 : 24;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Rounds a size up to the 8-byte alignment of objects.
+     *
+     * @param bytes the size.
+     * @return the aligned size.
+     */
+    long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Prints the profile of the run.
+     *
+     * @param text   the text given to the algorithm.
+     * @param result the result of the algorithm.
+     */
+    void print(ArrayList<Character> text, ArrayList<Integer> result) {
+        int n = Math.max(1, text.size());
+        long textSize = retainedSize(text);
+        long resultSize = retainedSize(result);
+        System.out.println("Octets alloués : " + allocated + " (" + (allocated / (double) n) + " par caractère)");
+        System.out.println("Taille retenue du texte : " + textSize + " octets (" + (textSize / (double) n)
+                + " par caractère)");
+        System.out.println("Taille retenue du résultat : " + resultSize + " octets (" + result.size()
+                + " occurrences)");
+        System.out.println("GC pendant l'exécution : " + gcCount + " collections, " + gcTime + " ms");
+    }
+}
@@ -19,6 +19,8 @@ class NaiveAlgo {
         testNaiveAlgo();
         testNaiveAlgoEfficiency();
         testGenerateSequenceText();
+        testNaivePrefilterAlgo();
+        testNaivePrefilterAlgoEfficiency();
     }
 
     /**
@@ -47,6 +49,111 @@ class NaiveAlgo {
         return tab;
     }
 
+    /**
+     * Naive algorithm with an operation budget, a deadline and a cancellation
+     * token, charged one unit per alignment and per character compared.
+     * 
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @param budget  the budget of the search; its status tells whether the
+     *                search was stopped.
+     * @return the starting indices of the occurrences found before the search
+     *         ended or was stopped.
+     */
+    ArrayList<Integer> naiveAlgo(ArrayList<Character> text, String pattern, SearchBudget budget) {
+        ArrayList<Integer> tab = new ArrayList<>();
+        int last = text.size() - pattern.length();
+        int i = 0;
+        while (i <= last) {
+            // search BATCH units without calling the budget, then charge them
+            int work = 0;
+            for (; i <= last && work < SearchBudget.BATCH; i++) {
+                cpt++; // incrémenter le compteur d'opérations
+                work++;
+                if (text.get(i) == pattern.charAt(0)) {
+                    int j = 1;
+                    while (j < pattern.length() && text.get(i + j) == pattern.charAt(j)) {
+                        j++;
+                    }
+                    if (j == pattern.length()) {
+                        tab.add(i+1); // 1st occurrence at index 1
+                    }
+                    work += j;
+                }
+            }
+            if (budget.exceeded(work)) {
+                return tab;
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * Naive algorithm with a SWAR prefilter: the candidate positions of the
+     * rarest character of the pattern are found 8 characters at a time, and
+     * the last character then the whole pattern are only compared there.
+     * Falls back to {@link #naiveAlgo(ArrayList, String)} when the text or the
+     * pattern does not fit in ISO-8859-1.
+     * 
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @return a list of starting indices for each occurrence of the pattern in the
+     *         text.
+     */
+    ArrayList<Integer> naivePrefilterAlgo(ArrayList<Character> text, String pattern) {
+        byte[] buf = new SwarPrefilter().toLatin1(text);
+        for (int j = 0; buf != null && j < pattern.length(); j++) {
+            if (pattern.charAt(j) > 0xFF) {
+                buf = null;
+            }
+        }
+        if (buf == null) {
+            return naiveAlgo(text, pattern);
+        }
+        return naivePrefilterAlgo(buf, pattern);
+    }
+
+    /**
+     * Naive algorithm with a SWAR prefilter on a primitive ISO-8859-1 buffer.
+     * cpt counts the words and bytes examined by the prefilter and the
+     * candidates verified.
+     * 
+     * @param buf     the text, one byte per character.
+     * @param pattern the pattern to search for, in ISO-8859-1.
+     * @return a list of starting indices for each occurrence of the pattern in the
+     *         text.
+     */
+    ArrayList<Integer> naivePrefilterAlgo(byte[] buf, String pattern) {
+        ArrayList<Integer> tab = new ArrayList<>();
+        int n = buf.length;
+        int m = pattern.length();
+        if (m == 0 || m > n) {
+            return tab;
+        }
+        SwarPrefilter filtre = new SwarPrefilter();
+        int k = filtre.rarest(buf, pattern);
+        byte anchor = (byte) pattern.charAt(k);
+        byte last = (byte) pattern.charAt(m - 1);
+
+        int c = filtre.next(buf, k, n - m + 1 + k, anchor);
+        while (c >= 0) {
+            int i = c - k;
+            cpt++; // incrémenter le compteur d'opérations
+            if (buf[i + m - 1] == last) {
+                int j = 0;
+                while (j < m && buf[i + j] == (byte) pattern.charAt(j)) {
+                    j++;
+                }
+                if (j == m) {
+                    tab.add(i + 1); // 1st occurrence at index 1
+                }
+            }
+            c = filtre.next(buf, c + 1, n - m + 1 + k, anchor);
+        }
+        cpt += filtre.cpt;
+        return tab;
+    }
+
     /**
      * Test method for the naive algorithm.
      */
@@ -85,13 +192,17 @@ class NaiveAlgo {
             ArrayList<Character> texte = generateLettreText(size, 'a');
             System.out.println("Taille du texte : " + size);
             cpt = 0; // reset the compteur
+            MemoryProfile profil = new MemoryProfile();
+            profil.start();
             t1 = System.nanoTime();
-            naiveAlgo(texte, pattern);
+            ArrayList<Integer> result = naiveAlgo(texte, pattern);
             t2 = System.nanoTime();
+            profil.stop();
             diffT = t2 - t1; // in nanosecondes
             System.out.println("Temps d'exécution : " + diffT + " ns");
             System.out.println("Nombre d'opérations (cpt) : " + cpt);
             System.out.println("Nombre d'opérations/n (cpt/n) : " + (cpt / (double) size));
+            profil.print(texte, result);
             System.out.println();
             size = size * 2;
         }
@@ -102,13 +213,97 @@ class NaiveAlgo {
             ArrayList<Character> texte = generateText(size);
             System.out.println("Taille du texte : " + size);
             cpt = 0; // reset the compteur
+            MemoryProfile profil = new MemoryProfile();
+            profil.start();
             t1 = System.nanoTime();
-            naiveAlgo(texte, pattern);
+            ArrayList<Integer> result = naiveAlgo(texte, pattern);
             t2 = System.nanoTime();
+            profil.stop();
             diffT = t2 - t1; // in nanosecondes
             System.out.println("Temps d'exécution : " + diffT + " ns");
             System.out.println("Nombre d'opérations (cpt) : " + cpt);
             System.out.println("Nombre d'opérations/n (cpt/n) : " + (cpt / (double) size));
+            profil.print(texte, result);
+            System.out.println();
+            size = size * 2;
+        }
+        System.out.println("--------------------------------------------------");
+    }
+
+    /**
+     * Test method for the naive algorithm with prefilter: its result must be the
+     * one of the naive algorithm.
+     */
+    void testNaivePrefilterAlgo() {
+        System.out.println("Test NaiveAlgo (préfiltre)");
+        ArrayList<Character> text = generateText(100000);
+        testCasNaivePrefilterAlgo(text, "t");
+        testCasNaivePrefilterAlgo(text, "ta");
+        testCasNaivePrefilterAlgo(text, "abf");
+        ArrayList<Character> text2 = generateSequenceText(100000);
+        testCasNaivePrefilterAlgo(text2, "aaaaab");
+        ArrayList<Character> text3 = generateLettreText(1001, 'a');
+        testCasNaivePrefilterAlgo(text3, "aaa");
+        testCasNaivePrefilterAlgo(text3, "ab");
+        ArrayList<Character> text4 = new ArrayList<>();
+        for (char c : "Il a regardé dedans, est entré dedans, puis a caché la clé dedans.".toCharArray())
+            text4.add(c);
+        testCasNaivePrefilterAlgo(text4, "dedans");
+        testCasNaivePrefilterAlgo(text4, "clé");
+        text4.add('\u20AC'); // not in ISO-8859-1: scalar fallback
+        testCasNaivePrefilterAlgo(text4, "dedans");
+    }
+
+    /**
+     * Compares the naive algorithm with and without prefilter on one text.
+     * 
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     */
+    void testCasNaivePrefilterAlgo(ArrayList<Character> text, String pattern) {
+        ArrayList<Integer> resultAttendu = naiveAlgo(text, pattern);
+        ArrayList<Integer> result = naivePrefilterAlgo(text, pattern);
+        if (result.equals(resultAttendu)) {
+            System.out.println("Test passed for pattern \"" + pattern + "\".");
+        } else {
+            System.out.println("Test failed for pattern \"" + pattern + "\". Expected: " + resultAttendu
+                    + ", Got: " + result);
+        }
+    }
+
+    /**
+     * Tests the efficiency of the naive algorithm with prefilter against the
+     * naive algorithm. The copy of the ArrayList into the primitive buffer is
+     * measured apart.
+     */
+    void testNaivePrefilterAlgoEfficiency() {
+        long t1, t2, diffT;
+        System.out.println("----- Tests d'efficacité de l'algorithme naïf avec préfiltre : -----");
+        System.out.println(" -- Texte avec alphabet entier aléatoire et motif \"abf\"\n");
+        int size = 500000;
+        String pattern = "abf";
+        for (int i = 1; i <= 6; i++) {
+            ArrayList<Character> texte = generateText(size);
+            System.out.println("Taille du texte : " + size);
+            cpt = 0;
+            t1 = System.nanoTime();
+            naiveAlgo(texte, pattern);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Naïf - temps : " + diffT + " ns, cpt/n : " + (cpt / (double) size));
+
+            t1 = System.nanoTime();
+            byte[] buf = new SwarPrefilter().toLatin1(texte);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Copie dans le tampon : " + diffT + " ns");
+
+            cpt = 0;
+            t1 = System.nanoTime();
+            naivePrefilterAlgo(buf, pattern);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Préfiltre - temps : " + diffT + " ns, cpt/n : " + (cpt / (double) size));
             System.out.println();
             size = size * 2;
         }
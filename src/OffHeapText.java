@@ -0,0 +1,247 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Text stored outside of the Java heap and indexed with long positions.
+ * The characters are kept in memory-mapped byte buffers of 2^chunkShift bytes
+ * each (2^30 by default), so the size of the text is not limited to 2^31-1
+ * characters and the garbage collector never scans it.
+ * A text built in memory is mapped on a deleted temporary file rather than
+ * allocated with ByteBuffer.allocateDirect: direct buffers are limited by
+ * -XX:MaxDirectMemorySize, which defaults to the maximum heap size, while
+ * mapped pages are only limited by the disk and paged by the system.
+ * Each character takes 1 byte (ISO-8859-1) or 2 bytes (UTF-16).
+ */
+class OffHeapText {
+
+    /**
+     * Default number of bytes per buffer (2^30).
+     */
+    static final int CHUNK_SHIFT = 30;
+
+    /**
+     * Number of bytes per buffer of this text (2^chunkShift).
+     */
+    int chunkShift;
+    long chunkBytes;
+    long chunkMask;
+
+    /**
+     * The buffers holding the characters.
+     */
+    ByteBuffer[] chunks;
+
+    /**
+     * Number of bytes per character (1 or 2).
+     */
+    int width;
+
+    /**
+     * Number of characters stored.
+     */
+    long size;
+
+    /**
+     * Maximum number of characters.
+     */
+    long capacity;
+
+    /**
+     * Allocates an empty off-heap text.
+     *
+     * @param capacity the maximum number of characters.
+     * @param width    the number of bytes per character: 1 for ISO-8859-1
+     *                 texts, 2 for any char.
+     */
+    OffHeapText(long capacity, int width) {
+        this(capacity, width, CHUNK_SHIFT);
+    }
+
+    /**
+     * Allocates an empty off-heap text with buffers of a given size.
+     *
+     * @param capacity   the maximum number of characters.
+     * @param width      the number of bytes per character: 1 for ISO-8859-1
+     *                   texts, 2 for any char.
+     * @param chunkShift the log2 of the number of bytes per buffer, from 1 to
+     *                   30.
+     * @throws UncheckedIOException if the temporary file cannot be created or
+     *                              mapped.
+     */
+    OffHeapText(long capacity, int width, int chunkShift) {
+        if (width != 1 && width != 2) {
+            throw new IllegalArgumentException("width must be 1 or 2, got " + width);
+        }
+        setChunkShift(chunkShift);
+        this.width = width;
+        this.capacity = capacity;
+        long bytes = capacity * width;
+        int nbChunks = (int) ((bytes + chunkBytes - 1) >>> chunkShift);
+        chunks = new ByteBuffer[nbChunks];
+        try {
+            Path file = Files.createTempFile("sae-offheap", ".txt");
+            // The mappings stay valid once the file is closed and deleted
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE)) {
+                for (int i = 0; i < nbChunks; i++) {
+                    long start = i * chunkBytes;
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, start,
+                            Math.min(chunkBytes, bytes - start));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map an off-heap text of " + bytes + " bytes", e);
+        }
+    }
+
+    /**
+     * Wraps already filled buffers.
+     *
+     * @param chunks     the buffers, all of 2^chunkShift bytes except the last
+     *                   one.
+     * @param width      the number of bytes per character.
+     * @param size       the number of characters.
+     * @param chunkShift the log2 of the number of bytes per buffer.
+     */
+    OffHeapText(ByteBuffer[] chunks, int width, long size, int chunkShift) {
+        setChunkShift(chunkShift);
+        this.chunks = chunks;
+        this.width = width;
+        this.size = size;
+        this.capacity = size;
+    }
+
+    /**
+     * Sets the size of the buffers. A 2-byte character never straddles two
+     * buffers since the size is even.
+     *
+     * @param chunkShift the log2 of the number of bytes per buffer, from 1 to
+     *                   30.
+     */
+    void setChunkShift(int chunkShift) {
+        if (chunkShift < 1 || chunkShift > CHUNK_SHIFT) {
+            throw new IllegalArgumentException("chunkShift must be in [1, " + CHUNK_SHIFT + "], got " + chunkShift);
+        }
+        this.chunkShift = chunkShift;
+        this.chunkBytes = 1L << chunkShift;
+        this.chunkMask = chunkBytes - 1;
+    }
+
+    /**
+     * Maps a file read-only as an ISO-8859-1 text (1 byte per character).
+     * Nothing is copied: the pages are loaded by the operating system when
+     * they are read.
+     *
+     * @param file the file to map.
+     * @return the text of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    static OffHeapText fromFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            long chunkBytes = 1L << CHUNK_SHIFT;
+            int nbChunks = (int) ((bytes + chunkBytes - 1) >>> CHUNK_SHIFT);
+            ByteBuffer[] chunks = new ByteBuffer[nbChunks];
+            for (int i = 0; i < nbChunks; i++) {
+                long start = i * chunkBytes;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkBytes, bytes - start));
+            }
+            return new OffHeapText(chunks, 1, bytes, CHUNK_SHIFT);
+        }
+    }
+
+    /**
+     * Copies an ArrayList text off the heap.
+     *
+     * @param text the text to copy.
+     * @return the off-heap copy, 1 byte per character when possible.
+     */
+    static OffHeapText fromArrayList(ArrayList<Character> text) {
+        return fromArrayList(text, CHUNK_SHIFT);
+    }
+
+    /**
+     * Copies an ArrayList text off the heap, in buffers of a given size.
+     *
+     * @param text       the text to copy.
+     * @param chunkShift the log2 of the number of bytes per buffer.
+     * @return the off-heap copy, 1 byte per character when possible.
+     */
+    static OffHeapText fromArrayList(ArrayList<Character> text, int chunkShift) {
+        int width = 1;
+        for (int i = 0; i < text.size() && width == 1; i++) {
+            if (text.get(i) > 0xFF) {
+                width = 2;
+            }
+        }
+        OffHeapText result = new OffHeapText(text.size(), width, chunkShift);
+        for (int i = 0; i < text.size(); i++) {
+            result.add(text.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Appends a character at the end of the text.
+     *
+     * @param c the character to append.
+     */
+    void add(char c) {
+        if (size >= capacity) {
+            throw new IndexOutOfBoundsException("Off-heap text is full (" + capacity + " characters)");
+        }
+        if (width == 1 && c > 0xFF) {
+            throw new IllegalArgumentException("Character " + (int) c + " does not fit in 1 byte");
+        }
+        set(size, c);
+        size++;
+    }
+
+    /**
+     * Returns the character at the given position.
+     *
+     * @param i the 0-based position.
+     * @return the character.
+     */
+    char get(long i) {
+        long b = i * width;
+        ByteBuffer chunk = chunks[(int) (b >>> chunkShift)];
+        int off = (int) (b & chunkMask);
+        if (width == 1) {
+            return (char) (chunk.get(off) & 0xFF);
+        }
+        return chunk.getChar(off);
+    }
+
+    /**
+     * Overwrites the character at the given position.
+     *
+     * @param i the 0-based position.
+     * @param c the new character.
+     */
+    void set(long i, char c) {
+        long b = i * width;
+        ByteBuffer chunk = chunks[(int) (b >>> chunkShift)];
+        int off = (int) (b & chunkMask);
+        if (width == 1) {
+            chunk.put(off, (byte) c);
+        } else {
+            chunk.putChar(off, c);
+        }
+    }
+
+    /**
+     * Returns the number of characters.
+     *
+     * @return the size of the text.
+     */
+    long size() {
+        return size;
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+
+/**
+ * Search of a pattern in a {@link PackedText}: at each position, the pattern
+ * is compared with the text 32 (2-bit) or 16 (4-bit) characters at a time by
+ * a XOR of long words, masked to the length of the pattern.
+ */
+class PackedAlgo {
+
+    /**
+     * Global counter to measure the algorithm's performance.
+     */
+    long cpt;
+
+    /**
+     * Main method to run tests of the packed search.
+     */
+    void principal() {
+        testPackedAlgo();
+        testPackedAlgoEfficiency();
+    }
+
+    /**
+     * Finds all occurrences of a pattern in a packed text.
+     *
+     * @param text    the packed text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @return a list of 1-based starting indices for each occurrence.
+     */
+    ArrayList<Integer> packedAlgo(PackedText text, String pattern) {
+        return packedAlgo(text, pattern, new SearchBudget());
+    }
+
+    /**
+     * Packed search with an operation budget, a deadline and a cancellation
+     * token, charged one unit per word compared.
+     *
+     * @param text    the packed text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @param budget  the budget of the search; its status tells whether the
+     *                search was stopped.
+     * @return the 1-based starting indices of the occurrences found before
+     *         the search ended or was stopped.
+     */
+    ArrayList<Integer> packedAlgo(PackedText text, String pattern, SearchBudget budget) {
+        ArrayList<Integer> result = new ArrayList<>();
+        int n = text.size();
+        int m = pattern.length();
+        long[] packed = text.packPattern(pattern);
+        if (m == 0 || m > n || packed == null) {
+            return result;
+        }
+        int perWord = text.perWord;
+        int k = packed.length;
+        // Mask of the last word: only the remaining characters of the pattern
+        int rest = m - (k - 1) * perWord;
+        long lastMask = rest == perWord ? -1L : (1L << (rest * text.bits)) - 1;
+
+        int i = 0;
+        while (i <= n - m) {
+            // compare BATCH words without calling the budget, then charge them
+            int work = 0;
+            for (; i <= n - m && work < SearchBudget.BATCH; i++) {
+                int w = 0;
+                boolean match = true;
+                while (match && w < k) {
+                    long diff = text.window(i + w * perWord) ^ packed[w];
+                    if (w == k - 1) {
+                        diff &= lastMask;
+                    }
+                    if (diff != 0) {
+                        match = false;
+                    }
+                    w++;
+                }
+                work += w;
+                if (match) {
+                    result.add(i + 1); // 1st occurrence at index 1
+                }
+            }
+            cpt += work;
+            if (budget.exceeded(work)) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Test method for the packed search.
+     */
+    void testPackedAlgo() {
+        System.out.println("Test PackedAlgo");
+        NaiveAlgo naive = new NaiveAlgo();
+        ArrayList<Character> sequence = naive.generateSequenceText(100000);
+        testCasPackedAlgo(sequence, "a");
+        testCasPackedAlgo(sequence, "aaaaab");
+        testCasPackedAlgo(sequence, "aaaaabbbbbcccccdddddaaaaabbbbbccccc");
+        testCasPackedAlgo(sequence, "abe");
+
+        ArrayList<Character> text16 = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            text16.add((char) ('a' + (int) (Math.random() * 16)));
+        }
+        testCasPackedAlgo(text16, "ab");
+        testCasPackedAlgo(text16, "abcdefghijklmnop");
+
+        ArrayList<Character> lettres = naive.generateLettreText(1000, 'a');
+        testCasPackedAlgo(lettres, "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+    }
+
+    /**
+     * Compares the packed search with the naive algorithm on one text.
+     *
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     */
+    void testCasPackedAlgo(ArrayList<Character> text, String pattern) {
+        ArrayList<Integer> resultAttendu = new NaiveAlgo().naiveAlgo(text, pattern);
+        ArrayList<Integer> result = packedAlgo(PackedText.fromArrayList(text), pattern);
+        if (result.equals(resultAttendu)) {
+            System.out.println("Test passed for pattern \"" + pattern + "\".");
+        } else {
+            System.out.println("Test failed for pattern \"" + pattern + "\". Expected: " + resultAttendu + ", Got: "
+                    + result);
+        }
+    }
+
+    /**
+     * Compares memory and time of the packed search with the naive and KMP
+     * algorithms on sequence texts over {a, b, c, d}.
+     * The ArrayList text costs at least one 4-byte reference per character
+     * (the Character objects of ASCII letters are shared).
+     */
+    void testPackedAlgoEfficiency() {
+        long t1, t2, diffT;
+        NaiveAlgo naive = new NaiveAlgo();
+        KMPAlgo kmp = new KMPAlgo();
+        System.out.println("----- Tests d'efficacité de la recherche sur texte compact : -----\n");
+        System.out.println(" -- Texte avec alphabet restreint {a,b,c,d} par séquences et motif \"aaaaabbbbbc\"\n");
+        int size = 500000;
+        String pattern = "aaaaabbbbbc";
+        for (int i = 1; i <= 6; i++) {
+            ArrayList<Character> texte = naive.generateSequenceText(size);
+            PackedText packed = PackedText.fromArrayList(texte);
+            System.out.println("Taille du texte : " + texte.size());
+            System.out.println("Mémoire ArrayList (références) : " + 4L * texte.size() + " octets");
+            System.out.println("Mémoire texte compact : " + packed.bytes() + " octets");
+
+            naive.cpt = 0;
+            t1 = System.nanoTime();
+            naive.naiveAlgo(texte, pattern);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Naïf - temps : " + diffT + " ns, cpt : " + naive.cpt);
+
+            kmp.cpt = 0;
+            t1 = System.nanoTime();
+            kmp.kmpAlgo(texte, pattern);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("KMP - temps : " + diffT + " ns, cpt : " + kmp.cpt);
+
+            cpt = 0;
+            t1 = System.nanoTime();
+            packedAlgo(packed, pattern);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Compact - temps : " + diffT + " ns, cpt : " + cpt);
+            System.out.println("Débit compact : " + (texte.size() / (diffT / 1e9) / 1e6) + " M caractères/s");
+            System.out.println();
+            size = size * 2;
+        }
+        System.out.println("--------------------------------------------------");
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Compact text over a small alphabet: each character is replaced by its code
+ * in the alphabet and stored on 2 bits (alphabet of at most 4 letters) or
+ * 4 bits (at most 16 letters), 32 or 16 characters per long word.
+ * Character i of the text is stored in word i / perWord, starting at bit
+ * (i % perWord) * bits.
+ */
+class PackedText {
+
+    /**
+     * The letters of the alphabet, in the order of their codes.
+     */
+    String alphabet;
+
+    /**
+     * Code of each character in the alphabet, -1 if it is not in the alphabet.
+     * Indexed by character code up to the largest letter of the alphabet.
+     */
+    int[] codeOf;
+
+    /**
+     * Number of bits per character (2 or 4).
+     */
+    int bits;
+
+    /**
+     * Number of characters per long word (32 or 16).
+     */
+    int perWord;
+
+    /**
+     * The packed characters.
+     */
+    long[] words;
+
+    /**
+     * Number of characters.
+     */
+    int size;
+
+    /**
+     * Creates an empty packed text.
+     *
+     * @param alphabet the letters of the alphabet (at most 16).
+     * @param capacity the maximum number of characters.
+     */
+    PackedText(String alphabet, int capacity) {
+        if (alphabet.length() > 16) {
+            throw new IllegalArgumentException("Alphabet of " + alphabet.length() + " letters, at most 16 allowed");
+        }
+        this.alphabet = alphabet;
+        this.bits = alphabet.length() <= 4 ? 2 : 4;
+        this.perWord = 64 / bits;
+        this.words = new long[(capacity + perWord - 1) / perWord];
+        int max = 0;
+        for (int i = 0; i < alphabet.length(); i++) {
+            max = Math.max(max, alphabet.charAt(i));
+        }
+        codeOf = new int[max + 1];
+        Arrays.fill(codeOf, -1);
+        for (int i = 0; i < alphabet.length(); i++) {
+            codeOf[alphabet.charAt(i)] = i;
+        }
+    }
+
+    /**
+     * Packs an ArrayList text, using the sorted set of its characters as the
+     * alphabet.
+     *
+     * @param text the text to pack.
+     * @return the packed text.
+     */
+    static PackedText fromArrayList(ArrayList<Character> text) {
+        TreeSet<Character> letters = new TreeSet<>(text);
+        StringBuilder alphabet = new StringBuilder();
+        for (char c : letters) {
+            alphabet.append(c);
+        }
+        PackedText result = new PackedText(alphabet.toString(), text.size());
+        for (int i = 0; i < text.size(); i++) {
+            result.add(text.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the code of a character, -1 if it is not in the alphabet.
+     *
+     * @param c the character.
+     * @return its code.
+     */
+    int code(char c) {
+        return c < codeOf.length ? codeOf[c] : -1;
+    }
+
+    /**
+     * Appends a character at the end of the text.
+     *
+     * @param c the character, which must be in the alphabet.
+     */
+    void add(char c) {
+        int code = code(c);
+        if (code < 0) {
+            throw new IllegalArgumentException("Character '" + c + "' is not in the alphabet \"" + alphabet + "\"");
+        }
+        words[size / perWord] |= (long) code << ((size % perWord) * bits);
+        size++;
+    }
+
+    /**
+     * Returns the character at the given position.
+     *
+     * @param i the 0-based position.
+     * @return the character.
+     */
+    char get(int i) {
+        int code = (int) (words[i / perWord] >>> ((i % perWord) * bits)) & ((1 << bits) - 1);
+        return alphabet.charAt(code);
+    }
+
+    /**
+     * Returns the 64 bits holding the perWord characters starting at position
+     * i (the bits past the end of the text are 0).
+     *
+     * @param i the 0-based position of the first character.
+     * @return the characters i to i + perWord - 1, packed.
+     */
+    long window(int i) {
+        int w = i / perWord;
+        int shift = (i % perWord) * bits;
+        long lo = words[w] >>> shift;
+        if (shift > 0 && w + 1 < words.length) {
+            lo |= words[w + 1] << (64 - shift);
+        }
+        return lo;
+    }
+
+    /**
+     * Packs a pattern with the alphabet of the text.
+     *
+     * @param pattern the pattern.
+     * @return the packed pattern, or null if it uses a letter outside the
+     *         alphabet (it cannot occur in the text).
+     */
+    long[] packPattern(String pattern) {
+        long[] result = new long[(pattern.length() + perWord - 1) / perWord];
+        for (int i = 0; i < pattern.length(); i++) {
+            int code = code(pattern.charAt(i));
+            if (code < 0) {
+                return null;
+            }
+            result[i / perWord] |= (long) code << ((i % perWord) * bits);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of characters.
+     *
+     * @return the size of the text.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the memory used by the packed characters.
+     *
+     * @return the size of the words in bytes.
+     */
+    long bytes() {
+        return 8L * words.length;
+    }
+}
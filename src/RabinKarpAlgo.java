@@ -1,3 +1,4 @@
+import java.math.BigInteger;
 import java.util.ArrayList;
 
 /**
@@ -11,12 +12,36 @@ class RabinKarpAlgo {
      */
     long cpt;
 
+    /**
+     * Base of the polynomial hash (size of the alphabet).
+     */
+    static final long BASE = 256L;
+
+    /**
+     * Prime modulus of the polynomial hash, to reduce collisions.
+     */
+    static final long MOD = 1000000007L;
+
+    /**
+     * Mersenne prime 2^61 - 1, modulus of the 61-bit rolling hash of
+     * {@link #rollingHashes}: MOD only gives about 2^30 values, too few to
+     * index millions of documents without collisions.
+     */
+    static final long MOD61 = (1L << 61) - 1;
+
+    /**
+     * Base of the 61-bit rolling hash, a large value below MOD61 so that short
+     * k-grams already spread over the whole range.
+     */
+    static final long BASE61 = 0x1F3D5B79A1C3E57L;
+
     /**
      * Main method to run tests for the Rabin-Karp algorithm.
      */
     void principal() {
         testRabinKarpAlgo();
         testRabinKarpAlgoEfficiency();
+        testRollingHashes();
     }
 
     /**
@@ -29,14 +54,30 @@ class RabinKarpAlgo {
      *         text.
      */
     ArrayList<Integer> rabinKarpAlgo(ArrayList<Character> text, String pattern) {
+        return rabinKarpAlgo(text, pattern, new SearchBudget());
+    }
+
+    /**
+     * Rabin-Karp algorithm with an operation budget, a deadline and a
+     * cancellation token, charged m units for the initial hashes and one unit
+     * per operation of the search phase.
+     * 
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @param budget  the budget of the search; its status tells whether the
+     *                search was stopped.
+     * @return the starting indices of the occurrences found before the search
+     *         ended or was stopped.
+     */
+    ArrayList<Integer> rabinKarpAlgo(ArrayList<Character> text, String pattern, SearchBudget budget) {
         ArrayList<Integer> result = new ArrayList<>();
         int n = text.size();
         int m = pattern.length();
         if (m == 0 || n < m)
             return result;
 
-        long base = 256L; // size of the alphabet
-        long mod = 1000000007L; // prime to reduce collisions
+        long base = BASE; // size of the alphabet
+        long mod = MOD; // prime to reduce collisions
 
         // Hash values should be long to avoid overflow during multiplication
         long patternHash = 0L;
@@ -55,13 +96,24 @@ class RabinKarpAlgo {
             textHash = (base * textHash + (int) (char) text.get(i)) % mod;
             cpt++;
         }
+        if (budget.exceeded(m)) {
+            return result;
+        }
 
         // research of the pattern in the text
+        int work = 0; // units of work not yet charged to the budget
         for (int i = 0; i <= n - m; i++) {
             cpt++;
+            if (++work >= SearchBudget.BATCH) {
+                if (budget.exceeded(work)) {
+                    return result;
+                }
+                work = 0;
+            }
             // if the hash values match, check character by character
             if (patternHash == textHash) {
                 boolean match = true;
+                work += m;
                 for (int j = 0; j < m; j++) {
                     cpt++;
                     if (match && text.get(i + j) != pattern.charAt(j)) {
@@ -82,6 +134,116 @@ class RabinKarpAlgo {
         return result;
     }
 
+    /**
+     * Computes in one pass the rolling hash of every substring of length k of
+     * the text. The polynomial is the one of {@link #rabinKarpAlgo}, with base
+     * BASE61 and modulus MOD61, so the hashes take 61 bits instead of 30.
+     * 
+     * @param text the text.
+     * @param k    the length of the substrings.
+     * @return hashes[i] is the hash of text[i..i+k-1], in [0, MOD61[; the
+     *         array is empty if the text is shorter than k.
+     */
+    long[] rollingHashes(ArrayList<Character> text, int k) {
+        int n = text.size();
+        if (k <= 0 || n < k) {
+            return new long[0];
+        }
+        long[] hashes = new long[n - k + 1];
+        long h = 1L;
+        for (int i = 0; i < k - 1; i++) {
+            h = mulMod61(h, BASE61);
+        }
+        long textHash = 0L;
+        for (int i = 0; i < k; i++) {
+            textHash = addMod61(mulMod61(textHash, BASE61), (char) text.get(i));
+            cpt++;
+        }
+        hashes[0] = textHash;
+        for (int i = 1; i <= n - k; i++) {
+            cpt++;
+            textHash -= mulMod61((char) text.get(i - 1), h);
+            if (textHash < 0)
+                textHash += MOD61;
+            textHash = addMod61(mulMod61(textHash, BASE61), (char) text.get(i + k - 1));
+            hashes[i] = textHash;
+        }
+        return hashes;
+    }
+
+    /**
+     * Multiplies modulo 2^61 - 1. The 122-bit product hi * 2^64 + lo is folded
+     * with 2^61 = 1 (mod 2^61 - 1), without division.
+     * 
+     * @param a a value in [0, MOD61[.
+     * @param b a value in [0, MOD61[.
+     * @return a * b mod MOD61.
+     */
+    static long mulMod61(long a, long b) {
+        long lo = a * b;
+        long hi = Math.multiplyHigh(a, b);
+        long r = (lo & MOD61) + (lo >>> 61) + (hi << 3);
+        r = (r & MOD61) + (r >>> 61);
+        return r >= MOD61 ? r - MOD61 : r;
+    }
+
+    /**
+     * Adds modulo 2^61 - 1.
+     * 
+     * @param a a value in [0, MOD61[.
+     * @param b a value in [0, MOD61[.
+     * @return a + b mod MOD61.
+     */
+    static long addMod61(long a, long b) {
+        long r = a + b;
+        return r >= MOD61 ? r - MOD61 : r;
+    }
+
+    /**
+     * Test method for the rolling hashes: each one must be the hash of its
+     * substring computed from scratch (with BigInteger), on letters and on
+     * characters up to 0xFFFF.
+     */
+    void testRollingHashes() {
+        System.out.println("Test RabinKarpAlgo.rollingHashes");
+        ArrayList<Character> lettres = new ArrayList<>();
+        ArrayList<Character> unicode = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            lettres.add((char) ('a' + (int) (Math.random() * 26)));
+            unicode.add((char) (Math.random() * 0x10000));
+        }
+        testCasRollingHashes(lettres, 1);
+        testCasRollingHashes(lettres, 20);
+        testCasRollingHashes(unicode, 20);
+        testCasRollingHashes(unicode, 200);
+    }
+
+    /**
+     * Compares the rolling hashes of a text with the hashes computed from
+     * scratch.
+     * 
+     * @param text the text.
+     * @param k    the length of the substrings.
+     */
+    void testCasRollingHashes(ArrayList<Character> text, int k) {
+        long[] hashes = rollingHashes(text, k);
+        BigInteger mod = BigInteger.valueOf(MOD61);
+        BigInteger base = BigInteger.valueOf(BASE61);
+        boolean equals = hashes.length == text.size() - k + 1;
+        for (int i = 0; i < hashes.length && equals; i += 97) {
+            BigInteger h = BigInteger.ZERO;
+            for (int j = 0; j < k; j++) {
+                h = h.multiply(base).add(BigInteger.valueOf(text.get(i + j))).mod(mod);
+            }
+            equals = h.longValue() == hashes[i];
+        }
+        if (equals) {
+            System.out.println("Test passed for k = " + k + ".");
+        } else {
+            System.out.println("Test failed for k = " + k + ".");
+        }
+    }
+
     /**
      * Test method for the Rabin-Karp algorithm.
      */
@@ -154,13 +316,17 @@ class RabinKarpAlgo {
             ArrayList<Character> texte = generateLettreText(size, 'a');
             System.out.println("Taille du texte : " + size);
             cpt = 0;
+            MemoryProfile profil = new MemoryProfile();
+            profil.start();
             t1 = System.nanoTime();
-            rabinKarpAlgo(texte, pattern);
+            ArrayList<Integer> result = rabinKarpAlgo(texte, pattern);
             t2 = System.nanoTime();
+            profil.stop();
             diffT = t2 - t1;
             System.out.println("Temps d'exécution : " + diffT + " ns");
             System.out.println("Nombre d'opérations (cpt) : " + cpt);
             System.out.println("Nombre d'opérations/n (cpt/n) : " + (cpt / (double) size));
+            profil.print(texte, result);
             System.out.println();
             size = size * 2;
         }
@@ -171,13 +337,17 @@ class RabinKarpAlgo {
             ArrayList<Character> texte = generateRandomText(size);
             System.out.println("Taille du texte : " + size);
             cpt = 0;
+            MemoryProfile profil = new MemoryProfile();
+            profil.start();
             t1 = System.nanoTime();
-            rabinKarpAlgo(texte, pattern);
+            ArrayList<Integer> result = rabinKarpAlgo(texte, pattern);
             t2 = System.nanoTime();
+            profil.stop();
             diffT = t2 - t1;
             System.out.println("Temps d'exécution : " + diffT + " ns");
             System.out.println("Nombre d'opérations (cpt) : " + cpt);
             System.out.println("Nombre d'opérations/n (cpt/n) : " + (cpt / (double) size));
+            profil.print(texte, result);
             System.out.println();
             size = size * 2;
         }
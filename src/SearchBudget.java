@@ -0,0 +1,299 @@
+import java.util.ArrayList;
+
+/**
+ * Operation budget, deadline and cancellation token of a search.
+ * The algorithms charge the work they do with {@link #exceeded(long)}: one
+ * unit per step of their main loop and per character compared, including the
+ * comparisons made to compute a shift, so that a long pattern costs more than
+ * a short one. When it returns true, they stop and return the occurrences
+ * found so far; {@link #status} then tells why the search stopped.
+ * The cancellation and the deadline are checked every 1024 units of work.
+ * To keep the searches without limits as fast as before, the algorithms only
+ * call {@link #exceeded(long)} once every {@link #BATCH} units of work, so the
+ * operation budget is exact to within BATCH units; the naive and Boyer-Moore
+ * searches without a budget, and the off-heap Rabin-Karp, keep their own loop,
+ * without any check.
+ */
+class SearchBudget {
+
+    /**
+     * State of a search.
+     */
+    enum Status {
+        /** The search went to the end of the text. */
+        COMPLETED,
+        /** The search used its operation budget. */
+        BUDGET_EXCEEDED,
+        /** The search reached its deadline. */
+        DEADLINE_EXCEEDED,
+        /** The search was cancelled by another thread. */
+        CANCELLED
+    }
+
+    /**
+     * The cancellation and the deadline are checked each time ops goes past a
+     * multiple of CHECK_MASK + 1.
+     */
+    static final long CHECK_MASK = 1023;
+
+    /**
+     * Number of units of work the algorithms accumulate before charging them.
+     * It must be a power of two, the automaton tests {@code i & (BATCH - 1)}.
+     */
+    static final int BATCH = 1024;
+
+    /**
+     * Maximum number of units of work.
+     */
+    long maxOps = Long.MAX_VALUE;
+
+    /**
+     * Deadline as a System.nanoTime() value, 0 for no deadline.
+     */
+    long deadline = 0;
+
+    /**
+     * Set by {@link #cancel()}, possibly from another thread.
+     */
+    volatile boolean cancelled = false;
+
+    /**
+     * Number of units of work charged so far.
+     */
+    long ops = 0;
+
+    /**
+     * Why the search stopped.
+     */
+    Status status = Status.COMPLETED;
+
+    /**
+     * Creates a budget without limits.
+     */
+    SearchBudget() {
+    }
+
+    /**
+     * Creates a budget with an operation limit and a timeout.
+     *
+     * @param maxOps  the maximum number of units of work, Long.MAX_VALUE for
+     *                none.
+     * @param timeout the maximum duration in nanoseconds from now, 0 for none.
+     */
+    SearchBudget(long maxOps, long timeout) {
+        this.maxOps = maxOps;
+        if (timeout > 0) {
+            this.deadline = System.nanoTime() + timeout;
+        }
+    }
+
+    /**
+     * Asks the search to stop at its next check.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Charges one unit of work and tells whether the search must stop.
+     *
+     * @return true if the budget, the deadline or the cancellation stops the
+     *         search.
+     */
+    boolean exceeded() {
+        return exceeded(1);
+    }
+
+    /**
+     * Charges some units of work and tells whether the search must stop.
+     *
+     * @param work the number of units of work done since the last call.
+     * @return true if the budget, the deadline or the cancellation stops the
+     *         search.
+     */
+    boolean exceeded(long work) {
+        long before = ops;
+        ops += work;
+        if (ops > maxOps) {
+            status = Status.BUDGET_EXCEEDED;
+            return true;
+        }
+        if ((before | CHECK_MASK) < ops) {
+            if (cancelled) {
+                status = Status.CANCELLED;
+                return true;
+            }
+            if (deadline != 0 && System.nanoTime() - deadline > 0) {
+                status = Status.DEADLINE_EXCEEDED;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Main method to run tests of the search budgets.
+     */
+    void principal() {
+        testSearchBudget();
+    }
+
+    /**
+     * Test method for the budgets: a small operation budget, no limit, a
+     * cancellation and a deadline, on every algorithm.
+     */
+    void testSearchBudget() {
+        System.out.println("Test SearchBudget");
+        NaiveAlgo naive = new NaiveAlgo();
+        ArrayList<Character> texte = naive.generateLettreText(200000, 'a');
+        String[] algos = { "naive", "kmp", "automaton", "rabinKarp", "boyerMoore", "turbo", "packed",
+                "longNaive", "longKmp", "longRabinKarp", "longBoyerMoore" };
+        for (String algo : algos) {
+            ArrayList<Integer> complet = search(algo, texte, "aaaa", new SearchBudget());
+
+            SearchBudget budget = new SearchBudget(1000, 0);
+            ArrayList<Integer> partiel = search(algo, texte, "aaaa", budget);
+            testCasSearchBudget(algo + " / budget", budget, Status.BUDGET_EXCEEDED, partiel, complet);
+
+            budget = new SearchBudget();
+            testCasSearchBudget(algo + " / illimité", budget, Status.COMPLETED,
+                    search(algo, texte, "aaaa", budget), complet);
+
+            budget = new SearchBudget();
+            budget.cancel();
+            testCasSearchBudget(algo + " / annulé", budget, Status.CANCELLED,
+                    search(algo, texte, "aaaa", budget), complet);
+        }
+
+        // Deadline on an adversarial search (about n * m comparisons)
+        ArrayList<Character> grand = naive.generateLettreText(2000000, 'a');
+        String motif = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+        SearchBudget budget = new SearchBudget(Long.MAX_VALUE, 1000000);
+        long t1 = System.nanoTime();
+        ArrayList<Integer> partiel = search("boyerMoore", grand, motif, budget);
+        long t2 = System.nanoTime();
+        testCasSearchBudget("boyerMoore / délai (" + (t2 - t1) + " ns)", budget, Status.DEADLINE_EXCEEDED, partiel,
+                search("boyerMoore", grand, motif, new SearchBudget()));
+
+        // Deadline with long patterns: few alignments, each of them costly
+        StringBuilder sb = new StringBuilder("b");
+        for (int i = 1; i < 2000; i++) {
+            sb.append('a');
+        }
+        testCasDeadline("boyerMoore", grand, sb.toString());
+        sb = new StringBuilder();
+        for (int i = 1; i < 20000; i++) {
+            sb.append('a');
+        }
+        testCasDeadline("naive", grand, sb.append('b').toString());
+
+        // Cancellation from another thread
+        SearchBudget annulable = new SearchBudget();
+        Thread annuleur = new Thread(() -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            annulable.cancel();
+        });
+        annuleur.start();
+        partiel = search("naive", grand, motif, annulable);
+        for (int k = 0; k < 1000 && annulable.status == Status.COMPLETED; k++) {
+            partiel = search("naive", grand, motif, annulable);
+        }
+        testCasSearchBudget("naive / annulé par un autre thread", annulable, Status.CANCELLED, partiel,
+                search("naive", grand, motif, new SearchBudget()));
+    }
+
+    /**
+     * Checks the status of a search and that its partial result is a prefix of
+     * the complete one.
+     *
+     * @param name          the name of the test case.
+     * @param budget        the budget used by the search.
+     * @param statusAttendu the expected status.
+     * @param partiel       the result of the search.
+     * @param complet       the result of the search without limits.
+     */
+    void testCasSearchBudget(String name, SearchBudget budget, Status statusAttendu, ArrayList<Integer> partiel,
+            ArrayList<Integer> complet) {
+        boolean prefix = partiel.size() <= complet.size()
+                && partiel.equals(new ArrayList<>(complet.subList(0, partiel.size())));
+        boolean complete = statusAttendu != Status.COMPLETED || partiel.size() == complet.size();
+        if (budget.status == statusAttendu && prefix && complete) {
+            System.out.println("Test passed for " + name + " (" + partiel.size() + "/" + complet.size()
+                    + " occurrences).");
+        } else {
+            System.out.println("Test failed for " + name + ". Expected: " + statusAttendu + ", Got: " + budget.status
+                    + " with " + partiel.size() + "/" + complet.size() + " occurrences.");
+        }
+    }
+
+    /**
+     * Runs an algorithm with a deadline of 1 ms on a pattern that does not
+     * occur in the text, and checks that it stops soon after the deadline.
+     *
+     * @param algo    the name of the algorithm.
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for, absent from the text.
+     */
+    void testCasDeadline(String algo, ArrayList<Character> text, String pattern) {
+        SearchBudget budget = new SearchBudget(Long.MAX_VALUE, 1000000);
+        long t1 = System.nanoTime();
+        ArrayList<Integer> partiel = search(algo, text, pattern, budget);
+        long t2 = System.nanoTime();
+        String name = algo + " / délai, motif de " + pattern.length() + " caractères (" + (t2 - t1) + " ns)";
+        if (t2 - t1 < 20000000) {
+            testCasSearchBudget(name, budget, Status.DEADLINE_EXCEEDED, partiel, new ArrayList<>());
+        } else {
+            System.out.println("Test failed for " + name + ". Expected to stop within 20 ms, status " + budget.status);
+        }
+    }
+
+    /**
+     * Runs an algorithm with a budget.
+     *
+     * @param algo    the name of the algorithm.
+     * @param text    the text in which to search for the pattern.
+     * @param pattern the pattern to search for.
+     * @param budget  the budget of the search.
+     * @return the occurrences found.
+     */
+    ArrayList<Integer> search(String algo, ArrayList<Character> text, String pattern, SearchBudget budget) {
+        if (algo.equals("naive")) {
+            return new NaiveAlgo().naiveAlgo(text, pattern, budget);
+        } else if (algo.equals("kmp")) {
+            return new KMPAlgo().kmpAlgo(text, pattern, budget);
+        } else if (algo.equals("automaton")) {
+            return new KMPAlgo().kmpAutomatonAlgo(text, pattern, budget);
+        } else if (algo.equals("rabinKarp")) {
+            return new RabinKarpAlgo().rabinKarpAlgo(text, pattern, budget);
+        } else if (algo.equals("boyerMoore")) {
+            return new BoyerMooreAlgo().boyerMooreAlgo(text, pattern, budget);
+        } else if (algo.equals("turbo")) {
+            return new BoyerMooreAlgo().turboBoyerMooreAlgo(text, pattern, budget);
+        } else if (algo.equals("packed")) {
+            return new PackedAlgo().packedAlgo(PackedText.fromArrayList(text), pattern, budget);
+        }
+        OffHeapText offHeap = OffHeapText.fromArrayList(text);
+        LongTextAlgo longAlgo = new LongTextAlgo();
+        ArrayList<Long> positions;
+        if (algo.equals("longNaive")) {
+            positions = longAlgo.naiveAlgo(offHeap, pattern, budget);
+        } else if (algo.equals("longKmp")) {
+            positions = longAlgo.kmpAlgo(offHeap, pattern, budget);
+        } else if (algo.equals("longRabinKarp")) {
+            positions = longAlgo.rabinKarpAlgo(offHeap, pattern, budget);
+        } else if (algo.equals("longBoyerMoore")) {
+            positions = longAlgo.boyerMooreAlgo(offHeap, pattern, budget);
+        } else {
+            throw new IllegalArgumentException("Unknown algorithm " + algo);
+        }
+        ArrayList<Integer> result = new ArrayList<>();
+        for (long position : positions) {
+            result.add((int) position);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,100 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+/**
+ * Prefilter finding the candidate positions of one character 8 characters at
+ * a time, with SWAR ("SIMD within a register") operations on long words read
+ * from a primitive ISO-8859-1 buffer.
+ * In a word x = w XOR (c repeated 8 times), the bytes equal to c become 0, and
+ * (x - 0x01..01) AND NOT x AND 0x80..80 has its lowest set bit in the first
+ * zero byte.
+ */
+class SwarPrefilter {
+
+    /**
+     * Global counter: number of words and bytes examined.
+     */
+    long cpt;
+
+    /**
+     * Reads a little-endian long at any offset of a byte array.
+     */
+    static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    static final long ONES = 0x0101010101010101L;
+    static final long HIGHS = 0x8080808080808080L;
+
+    /**
+     * Copies a text into a primitive buffer, one byte per character.
+     *
+     * @param text the text.
+     * @return the buffer, or null if a character does not fit in ISO-8859-1.
+     */
+    byte[] toLatin1(ArrayList<Character> text) {
+        byte[] buf = new byte[text.size()];
+        for (int i = 0; i < buf.length; i++) {
+            char c = text.get(i);
+            if (c > 0xFF) {
+                return null;
+            }
+            buf[i] = (byte) c;
+        }
+        return buf;
+    }
+
+    /**
+     * Finds the next occurrence of a byte.
+     *
+     * @param buf   the buffer.
+     * @param from  the first index to examine.
+     * @param limit the end (exclusive) of the search.
+     * @param b     the byte to find.
+     * @return the index of the first occurrence in [from, limit[, or -1.
+     */
+    int next(byte[] buf, int from, int limit, byte b) {
+        long pattern = (b & 0xFFL) * ONES;
+        int i = from;
+        while (i + 8 <= limit) {
+            cpt++;
+            long x = (long) LONGS.get(buf, i) ^ pattern;
+            long found = (x - ONES) & ~x & HIGHS;
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+            i += 8;
+        }
+        while (i < limit) {
+            cpt++;
+            if (buf[i] == b) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * Chooses the rarest character of a pattern, from the frequencies of the
+     * first 4096 characters of the text.
+     *
+     * @param buf     the text.
+     * @param pattern the pattern, whose characters all fit in ISO-8859-1.
+     * @return the index in the pattern of the rarest character.
+     */
+    int rarest(byte[] buf, String pattern) {
+        int[] freq = new int[256];
+        int sample = Math.min(buf.length, 4096);
+        for (int i = 0; i < sample; i++) {
+            freq[buf[i] & 0xFF]++;
+        }
+        int best = 0;
+        for (int j = 1; j < pattern.length(); j++) {
+            if (freq[pattern.charAt(j)] < freq[pattern.charAt(best)]) {
+                best = j;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,348 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Fingerprint index for near-duplicate detection across documents.
+ * The 61-bit hashes of all the k-grams of a document are computed in one pass
+ * with the rolling hash of {@link RabinKarpAlgo}, and the winnowing algorithm keeps
+ * the minimal hash of every window of w consecutive k-grams. Every substring
+ * of length at least w + k - 1 shared by two documents therefore gives them at
+ * least one common fingerprint.
+ * The fingerprints are stored in an open-addressing hash table of primitive
+ * arrays, from fingerprint to the list of its (document, position) entries.
+ */
+class WinnowingIndex {
+
+    /**
+     * Global counter to measure the performance of the index.
+     */
+    long cpt;
+
+    /**
+     * Length of the k-grams.
+     */
+    int k;
+
+    /**
+     * Size of the winnowing window, in k-grams.
+     */
+    int w;
+
+    /**
+     * Hash table: fingerprint of each slot (-1 for an empty slot) and index of
+     * the first entry of its list.
+     */
+    long[] keys;
+    int[] heads;
+    int nbKeys = 0;
+
+    /**
+     * Entries: document, position (0-based) and next entry of the same
+     * fingerprint (-1 at the end of the list).
+     */
+    int[] entryDoc;
+    int[] entryPos;
+    int[] entryNext;
+    int nbEntries = 0;
+
+    /**
+     * Number of indexed documents.
+     */
+    int nbDocs = 0;
+
+    /**
+     * Fingerprints selected by the last call to {@link #winnow}: hash and
+     * position of the k-gram.
+     */
+    long[] fpHashes = new long[16];
+    int[] fpPositions = new int[16];
+    int nbFingerprints = 0;
+
+    /**
+     * Number of shared fingerprints per document, used by {@link #query}.
+     */
+    int[] counts = new int[16];
+
+    /**
+     * Creates an empty index.
+     *
+     * @param k the length of the k-grams.
+     * @param w the size of the winnowing window.
+     */
+    WinnowingIndex(int k, int w) {
+        if (k <= 0 || w <= 0) {
+            throw new IllegalArgumentException("k and w must be positive, got k = " + k + ", w = " + w);
+        }
+        this.k = k;
+        this.w = w;
+        keys = new long[1024];
+        Arrays.fill(keys, -1);
+        heads = new int[1024];
+        entryDoc = new int[1024];
+        entryPos = new int[1024];
+        entryNext = new int[1024];
+    }
+
+    /**
+     * Creates an empty index with k = 20 and w = 30 (every shared passage of
+     * 49 characters is detected).
+     */
+    WinnowingIndex() {
+        this(20, 30);
+    }
+
+    /**
+     * Main method to run tests of the fingerprint index.
+     */
+    void principal() {
+        testWinnowingIndex();
+        testWinnowingIndexEfficiency();
+    }
+
+    /**
+     * Selects the fingerprints of a document with the winnowing algorithm: in
+     * each window of w consecutive k-gram hashes, the rightmost minimal hash is
+     * kept, once per position. A monotonic deque gives the minimum of each
+     * window in constant amortized time.
+     * The result is left in fpHashes, fpPositions and nbFingerprints.
+     *
+     * @param doc the document.
+     */
+    void winnow(ArrayList<Character> doc) {
+        RabinKarpAlgo rk = new RabinKarpAlgo();
+        long[] hashes = rk.rollingHashes(doc, k);
+        cpt += rk.cpt;
+        nbFingerprints = 0;
+
+        int[] deque = new int[Math.min(w, hashes.length) + 1];
+        int head = 0; // index of the first element (circular)
+        int size = 0;
+        int last = -1; // position of the last fingerprint kept
+        int windows = Math.max(hashes.length - w + 1, hashes.length > 0 ? 1 : 0);
+        int end = 0;
+        for (int win = 0; win < windows; win++) {
+            int windowEnd = Math.min(win + w, hashes.length);
+            while (end < windowEnd) {
+                cpt++;
+                while (size > 0 && hashes[deque[(head + size - 1) % deque.length]] >= hashes[end]) {
+                    size--;
+                }
+                deque[(head + size) % deque.length] = end;
+                size++;
+                end++;
+            }
+            while (deque[head] < win) {
+                head = (head + 1) % deque.length;
+                size--;
+            }
+            int min = deque[head];
+            if (min != last) {
+                addFingerprint(hashes[min], min);
+                last = min;
+            }
+        }
+    }
+
+    /**
+     * Appends a fingerprint to the result of {@link #winnow}.
+     *
+     * @param hash     the hash of the k-gram.
+     * @param position the 0-based position of the k-gram.
+     */
+    void addFingerprint(long hash, int position) {
+        if (nbFingerprints == fpHashes.length) {
+            fpHashes = Arrays.copyOf(fpHashes, 2 * nbFingerprints);
+            fpPositions = Arrays.copyOf(fpPositions, 2 * nbFingerprints);
+        }
+        fpHashes[nbFingerprints] = hash;
+        fpPositions[nbFingerprints] = position;
+        nbFingerprints++;
+    }
+
+    /**
+     * Finds the slot of a fingerprint in the hash table (linear probing).
+     *
+     * @param hash the fingerprint.
+     * @return the slot holding it, or the empty slot where it would go.
+     */
+    int slot(long hash) {
+        int mask = keys.length - 1;
+        int s = (int) ((hash * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (keys[s] != -1 && keys[s] != hash) {
+            s = (s + 1) & mask;
+        }
+        return s;
+    }
+
+    /**
+     * Adds a document to the index.
+     *
+     * @param doc the document.
+     * @return the number of the document (0 for the first one).
+     */
+    int addDocument(ArrayList<Character> doc) {
+        int id = nbDocs;
+        nbDocs++;
+        winnow(doc);
+        for (int f = 0; f < nbFingerprints; f++) {
+            if (2 * (nbKeys + 1) > keys.length) {
+                rehash();
+            }
+            int s = slot(fpHashes[f]);
+            if (keys[s] == -1) {
+                keys[s] = fpHashes[f];
+                heads[s] = -1;
+                nbKeys++;
+            }
+            if (nbEntries == entryDoc.length) {
+                entryDoc = Arrays.copyOf(entryDoc, 2 * nbEntries);
+                entryPos = Arrays.copyOf(entryPos, 2 * nbEntries);
+                entryNext = Arrays.copyOf(entryNext, 2 * nbEntries);
+            }
+            entryDoc[nbEntries] = id;
+            entryPos[nbEntries] = fpPositions[f];
+            entryNext[nbEntries] = heads[s];
+            heads[s] = nbEntries;
+            nbEntries++;
+        }
+        return id;
+    }
+
+    /**
+     * Doubles the hash table and reinserts its keys.
+     */
+    void rehash() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        keys = new long[2 * oldKeys.length];
+        Arrays.fill(keys, -1);
+        heads = new int[2 * oldKeys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != -1) {
+                int s = slot(oldKeys[i]);
+                keys[s] = oldKeys[i];
+                heads[s] = oldHeads[i];
+            }
+        }
+    }
+
+    /**
+     * Finds the indexed documents sharing fingerprints with a document.
+     * The cost depends on the length of the document and on the number of
+     * entries of its fingerprints, not on the number of indexed documents.
+     *
+     * @param doc the document.
+     * @return for each candidate document, {document, number of shared
+     *         fingerprints}, by decreasing number of shared fingerprints.
+     */
+    ArrayList<int[]> query(ArrayList<Character> doc) {
+        if (counts.length < nbDocs) {
+            counts = Arrays.copyOf(counts, Math.max(nbDocs, 2 * counts.length));
+        }
+        winnow(doc);
+        ArrayList<int[]> result = new ArrayList<>();
+        for (int f = 0; f < nbFingerprints; f++) {
+            int s = slot(fpHashes[f]);
+            if (keys[s] != -1) {
+                for (int e = heads[s]; e != -1; e = entryNext[e]) {
+                    cpt++;
+                    int d = entryDoc[e];
+                    if (counts[d] == 0) {
+                        result.add(new int[] { d, 0 });
+                    }
+                    counts[d]++;
+                }
+            }
+        }
+        for (int[] r : result) {
+            r[1] = counts[r[0]];
+            counts[r[0]] = 0; // reset only the documents touched
+        }
+        result.sort((a, b) -> b[1] != a[1] ? b[1] - a[1] : a[0] - b[0]);
+        return result;
+    }
+
+    /**
+     * Test method for the fingerprint index.
+     */
+    void testWinnowingIndex() {
+        System.out.println("Test WinnowingIndex");
+        NaiveAlgo naive = new NaiveAlgo();
+        WinnowingIndex index = new WinnowingIndex(10, 8);
+        ArrayList<ArrayList<Character>> docs = new ArrayList<>();
+        for (int d = 0; d < 200; d++) {
+            docs.add(naive.generateText(2000));
+            index.addDocument(docs.get(d));
+        }
+
+        // A passage of exactly w + k - 1 characters of document 42
+        ArrayList<Character> query = naive.generateText(500);
+        query.addAll(250, docs.get(42).subList(1000, 1000 + 8 + 10 - 1));
+        testCasWinnowingIndex(index, query, 42);
+
+        // Long passages of documents 7 and 150
+        ArrayList<Character> query2 = naive.generateText(300);
+        query2.addAll(docs.get(7).subList(100, 700));
+        query2.addAll(docs.get(150).subList(0, 200));
+        testCasWinnowingIndex(index, query2, 7);
+
+        // Unrelated document
+        testCasWinnowingIndex(index, naive.generateText(2000), -1);
+    }
+
+    /**
+     * Queries the index and checks the best candidate.
+     *
+     * @param index      the index.
+     * @param doc        the document to look up.
+     * @param docAttendu the expected best candidate, -1 for none.
+     */
+    void testCasWinnowingIndex(WinnowingIndex index, ArrayList<Character> doc, int docAttendu) {
+        ArrayList<int[]> result = index.query(doc);
+        int best = result.isEmpty() ? -1 : result.get(0)[0];
+        if (best == docAttendu) {
+            System.out.println("Test passed for document " + docAttendu + " (" + result.size() + " candidats).");
+        } else {
+            System.out.println("Test failed. Expected: " + docAttendu + ", Got: " + best);
+        }
+    }
+
+    /**
+     * Measures the query time for corpora of growing size: it must stay about
+     * the same while the corpus grows.
+     */
+    void testWinnowingIndexEfficiency() {
+        long t1, t2, diffT;
+        NaiveAlgo naive = new NaiveAlgo();
+        System.out.println("----- Tests d'efficacité de l'index d'empreintes : -----\n");
+        System.out.println(" -- Documents de 1000 caractères aléatoires, requête de 10000 caractères\n");
+        WinnowingIndex index = new WinnowingIndex();
+        ArrayList<Character> query = naive.generateText(10000);
+        int nbDocs = 1000;
+        for (int i = 1; i <= 5; i++) {
+            t1 = System.nanoTime();
+            while (index.nbDocs < nbDocs) {
+                ArrayList<Character> doc = naive.generateText(1000);
+                if (index.nbDocs == nbDocs / 2) {
+                    doc.addAll(500, query.subList(5000, 5100));
+                }
+                index.addDocument(doc);
+            }
+            t2 = System.nanoTime();
+            System.out.println("Nombre de documents : " + nbDocs);
+            System.out.println("Temps d'indexation total : " + (t2 - t1) + " ns");
+            System.out.println("Empreintes distinctes : " + index.nbKeys + ", entrées : " + index.nbEntries);
+            index.cpt = 0;
+            t1 = System.nanoTime();
+            ArrayList<int[]> result = index.query(query);
+            t2 = System.nanoTime();
+            diffT = t2 - t1;
+            System.out.println("Temps de la requête : " + diffT + " ns");
+            System.out.println("Nombre d'opérations (cpt) : " + index.cpt);
+            System.out.println("Candidats : " + result.size());
+            System.out.println();
+            nbDocs = nbDocs * 2;
+        }
+        System.out.println("--------------------------------------------------");
+    }
+}